@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Fails when the parts of the touch and settle paths which run off a device
+ * allocate once warmed up: sliding and jumping the {@link PageWindow},
+ * stepping every {@link PagerPhysics} and recording {@link PagerMetrics}.
+ * Drags and settles, which need the framework, are checked by
+ * {@code TouchPathAllocationTest} in the tests module. Runs as part of
+ * {@code mvn verify}, or by hand:
+ *
+ * <pre>
+ * mvn clean package
+ * java -cp benchmarks/target/benchmarks.jar com.directionalviewpager.AllocationCheck
+ * </pre>
+ */
+public final class AllocationCheck {
+    private static final int WARMUP_ITERATIONS = 50000;
+    private static final int ITERATIONS = 10000;
+    /** Compilation can allocate on the thread now and then, so the best round counts. */
+    private static final int ROUNDS = 5;
+    private static final int COUNT = 1000;
+
+    /** A path of the pager which must not allocate. */
+    abstract static class Path {
+        final String name;
+
+        Path(String name) {
+            this.name = name;
+        }
+
+        abstract void run();
+    }
+
+    private final com.sun.management.ThreadMXBean mThreads;
+    private final long mThreadId = Thread.currentThread().getId();
+    private long mOverhead;
+
+    private AllocationCheck(com.sun.management.ThreadMXBean threads) {
+        mThreads = threads;
+    }
+
+    private long allocatedBytes() {
+        return mThreads.getThreadAllocatedBytes(mThreadId);
+    }
+
+    /**
+     * Returns the fewest bytes allocated by {@link #ITERATIONS} runs of a
+     * path in any round, after warming it up.
+     */
+    private long measure(Path path) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            path.run();
+        }
+        long bytes = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            final long start = allocatedBytes();
+            for (int i = 0; i < ITERATIONS; i++) {
+                path.run();
+            }
+            bytes = Math.min(bytes, allocatedBytes() - start - mOverhead);
+        }
+        return bytes;
+    }
+
+    private static Path slide(final int limit) {
+        final PageWindow window = new PageWindow(new PageWindowBenchmark.FakeHost());
+        window.setLimits(limit, limit);
+        window.populate(COUNT / 2, COUNT);
+        return new Path("PageWindow slide, limit " + limit) {
+            private int mCurrent = COUNT / 2;
+            private int mDirection = 1;
+
+            @Override
+            void run() {
+                if (mCurrent + mDirection < 0 || mCurrent + mDirection >= COUNT) {
+                    mDirection = -mDirection;
+                }
+                mCurrent += mDirection;
+                window.populate(mCurrent, COUNT);
+            }
+        };
+    }
+
+    private static Path jump(final int limit) {
+        final PageWindow window = new PageWindow(new PageWindowBenchmark.FakeHost());
+        window.setLimits(limit, limit);
+        window.populate(COUNT / 2, COUNT);
+        return new Path("PageWindow jump and settle, limit " + limit) {
+            private int mCurrent = COUNT / 2;
+
+            @Override
+            void run() {
+                final int target = (mCurrent + COUNT / 2) % COUNT;
+                if (window.isJump(mCurrent, target)) {
+                    window.markScrolling();
+                }
+                mCurrent = target;
+                window.populate(mCurrent, COUNT);
+                if (window.clearScrolling()) {
+                    window.populate(mCurrent, COUNT);
+                }
+            }
+        };
+    }
+
+    private static Path settle(String name, final PagerPhysics physics) {
+        return new Path(name + " settle") {
+            private long mTime;
+
+            @Override
+            void run() {
+                physics.start(0, 1080, 2000, mTime);
+                while (physics.update(mTime += 16) && !physics.isFinished()) {
+                    // Step frame by frame to the end.
+                }
+            }
+        };
+    }
+
+    private static Path metrics() {
+        final PagerMetrics metrics = new PagerMetrics();
+        return new Path("PagerMetrics") {
+            private long mNanos;
+
+            @Override
+            void run() {
+                mNanos = (mNanos * 31 + 17) % 100000000;
+                metrics.onPagerEvent(PagerMetricsListener.EVENT_SCROLL_FRAME, mNanos);
+            }
+        };
+    }
+
+    public static void main(String[] args) {
+        final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            System.out.println("Allocation counting is not supported by this JVM, skipping.");
+            return;
+        }
+        final AllocationCheck check = new AllocationCheck((com.sun.management.ThreadMXBean) threads);
+        check.mOverhead = check.measure(new Path("nothing") {
+            @Override
+            void run() {
+            }
+        });
+
+        final Path[] paths = {
+            slide(1),
+            slide(3),
+            jump(1),
+            jump(3),
+            settle("FixedDurationPhysics", new FixedDurationPhysics()),
+            settle("SpringPhysics", new SpringPhysics()),
+            settle("DecayPhysics", new DecayPhysics()),
+            metrics(),
+        };
+        boolean failed = false;
+        for (Path path : paths) {
+            final long bytes = check.measure(path);
+            System.out.println(String.format("%-40s %8d bytes", path.name, bytes));
+            failed |= bytes > 0;
+        }
+        if (failed) {
+            throw new IllegalStateException("A path allocated after warming up.");
+        }
+    }
+}
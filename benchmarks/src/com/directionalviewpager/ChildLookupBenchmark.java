@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of finding the item of every page in a layout pass, as
+ * {@code DirectionalViewPager.infoForChild()} does, by scanning the retained
+ * items and through the item remembered in the page's layout params.
+ *
+ * <p>Views cannot be created off a device, so pages are stood in for by
+ * {@link Page}s which remember their item the same way, and the adapter's
+ * {@code isViewFromObject()} by {@link Adapter}.</p>
+ *
+ * <pre>
+ * mvn clean package
+ * java -jar benchmarks/target/benchmarks.jar ChildLookupBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChildLookupBenchmark {
+    /** A page and its layout params. */
+    static final class Page {
+        ItemInfo info;
+    }
+
+    /** Host which creates a page for every item, tagged with it. */
+    static final class PageHost implements PageWindow.Host {
+        @Override
+        public void onCreateItem(ItemInfo ii) {
+            final Page page = new Page();
+            page.info = ii;
+            ii.object = page;
+        }
+
+        @Override
+        public void onDestroyItem(ItemInfo ii) {
+        }
+
+        @Override
+        public int getItemPosition(Object object) {
+            return PageWindow.POSITION_UNCHANGED;
+        }
+
+        @Override
+        public boolean hasStableIds() {
+            return false;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+    }
+
+    /** Matches pages to items like an adapter whose pages are their items. */
+    static final class Adapter {
+        boolean isViewFromObject(Page page, Object object) {
+            return page == object;
+        }
+    }
+
+    @Param({ "1", "3", "10" })
+    int limit;
+
+    private final Adapter adapter = new Adapter();
+    private PageWindow window;
+    private Page[] pages;
+
+    @Setup
+    public void setUp() {
+        final int count = 1000;
+        window = new PageWindow(new PageHost());
+        window.setLimits(limit, limit);
+        window.populate(count / 2, count);
+
+        // Children are in the order the pages were added, not by position.
+        final ItemInfoBuffer items = window.getItems();
+        pages = new Page[items.size()];
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] = (Page) items.get(i).object;
+        }
+        final Random random = new Random(0);
+        for (int i = pages.length - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final Page page = pages[i];
+            pages[i] = pages[j];
+            pages[j] = page;
+        }
+    }
+
+    /** Asking the adapter about every retained item, as before. */
+    @Benchmark
+    public int scan() {
+        final ItemInfoBuffer items = window.getItems();
+        int found = 0;
+        for (Page page : pages) {
+            for (int i = 0; i < items.size(); i++) {
+                final ItemInfo ii = items.get(i);
+                if (adapter.isViewFromObject(page, ii.object)) {
+                    found += ii.position;
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    /** Checking the item remembered by the page once. */
+    @Benchmark
+    public int layoutParams() {
+        int found = 0;
+        for (Page page : pages) {
+            final ItemInfo ii = page.info;
+            if (ii != null && ii.object != null && adapter.isViewFromObject(page, ii.object)) {
+                found += ii.position;
+            }
+        }
+        return found;
+    }
+}
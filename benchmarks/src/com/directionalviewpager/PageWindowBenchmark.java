@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the window bookkeeping done by {@link PageWindow} for the common
+ * ways a pager moves, with pages that cost nothing to create.
+ *
+ * <pre>
+ * mvn clean package
+ * java -jar benchmarks/target/benchmarks.jar PageWindowBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageWindowBenchmark {
+    /**
+     * Host whose pages are their own items. It can pretend every page moved
+     * by {@link #shift} positions to exercise data set changes.
+     */
+    static final class FakeHost implements PageWindow.Host {
+        int shift;
+        int created;
+        int destroyed;
+
+        @Override
+        public void onCreateItem(ItemInfo ii) {
+            ii.object = ii;
+            created++;
+        }
+
+        @Override
+        public void onDestroyItem(ItemInfo ii) {
+            destroyed++;
+        }
+
+        @Override
+        public int getItemPosition(Object object) {
+            if (shift == 0) {
+                return PageWindow.POSITION_UNCHANGED;
+            }
+            return ((ItemInfo) object).position + shift;
+        }
+
+        @Override
+        public boolean hasStableIds() {
+            return false;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+    }
+
+    @Param({ "10", "1000", "100000", "10000000" })
+    int count;
+
+    @Param({ "1", "3" })
+    int limit;
+
+    private FakeHost host;
+    private PageWindow window;
+    private int current;
+    private int direction;
+
+    @Setup
+    public void setUp() {
+        host = new FakeHost();
+        window = new PageWindow(host);
+        window.setLimits(limit, limit);
+        current = count / 2;
+        direction = 1;
+        window.populate(current, count);
+    }
+
+    /** The user swiping one page at a time, turning around at either end. */
+    @Benchmark
+    public int slide() {
+        if (current + direction < 0 || current + direction >= count) {
+            direction = -direction;
+        }
+        current += direction;
+        window.populate(current, count);
+        return window.getItems().size();
+    }
+
+    /** setCurrentItem() across half of the adapter and the settle after it. */
+    @Benchmark
+    public int longJump() {
+        final int target = (int) ((current + count / 2L) % count);
+        if (window.isJump(current, target)) {
+            window.markScrolling();
+        }
+        current = target;
+        window.populate(current, count);
+        if (window.clearScrolling()) {
+            window.populate(current, count);
+        }
+        return window.getItems().size();
+    }
+
+    /** Every retained page moving by one position, e.g. an insert at the front. */
+    @Benchmark
+    public int dataSetChanged() {
+        host.shift = current + 1 < count ? 1 : -1;
+        final boolean needPopulate = window.dataSetChanged(current, count);
+        host.shift = 0;
+        final int followed = window.getFollowedItem();
+        if (followed >= 0) {
+            current = followed;
+        }
+        if (needPopulate) {
+            window.populate(current, count);
+        }
+        return window.getItems().size();
+    }
+}
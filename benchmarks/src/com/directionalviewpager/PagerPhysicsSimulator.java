@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+/**
+ * Steps {@link PagerPhysics} implementations frame by frame with a fake
+ * clock, the way the pager does on a device, and reports how long they take
+ * to settle and how far they overshoot.
+ *
+ * <pre>
+ * mvn clean package
+ * java -cp benchmarks/target/benchmarks.jar com.directionalviewpager.PagerPhysicsSimulator
+ * </pre>
+ */
+public final class PagerPhysicsSimulator {
+    /** Frames after which an animation is considered to never settle. */
+    private static final int MAX_FRAMES = 10000;
+
+    private static final int PAGE_SIZE = 1080;
+    private static final float[] REFRESH_RATES = { 60, 90, 120 };
+    private static final int[] DISTANCES = { PAGE_SIZE / 3, PAGE_SIZE };
+    private static final float[] VELOCITIES = { 0, 2000, 8000 };
+
+    /** Outcome of one simulated settle. */
+    public static final class Result {
+        /** Frames drawn until the pages came to rest, including the last. */
+        public int frames;
+        /** Time from the start until the pages came to rest. */
+        public long settleMillis;
+        /** Furthest the pages went past the end, in pixels. */
+        public int overshoot;
+        /** Whether the pages came to rest at all. */
+        public boolean settled;
+    }
+
+    private PagerPhysicsSimulator() {}
+
+    /**
+     * Settle from {@code start} to {@code end} with frames at
+     * {@code refreshRate} per second.
+     */
+    public static Result simulate(PagerPhysics physics, int start, int end, float velocity,
+            float refreshRate) {
+        final Result result = new Result();
+        final double frameMillis = 1000 / refreshRate;
+        final int direction = end >= start ? 1 : -1;
+        physics.start(start, end, velocity, 0);
+        for (int frame = 1; frame <= MAX_FRAMES; frame++) {
+            final long now = Math.round(frame * frameMillis);
+            if (!physics.update(now)) {
+                break;
+            }
+            result.frames = frame;
+            result.overshoot = Math.max(result.overshoot, (physics.getPosition() - end) * direction);
+            if (physics.isFinished()) {
+                result.settleMillis = now;
+                result.settled = true;
+                break;
+            }
+        }
+        return result;
+    }
+
+    public static void main(String[] args) {
+        final PagerPhysics[] physics = {
+            new FixedDurationPhysics(),
+            new SpringPhysics(),
+            new SpringPhysics(SpringPhysics.DEFAULT_STIFFNESS, 0.6f),
+            new DecayPhysics(),
+        };
+        final String[] names = { "fixed", "spring", "spring(0.6)", "decay" };
+
+        System.out.println("physics       hz  distance  velocity  frames  settleMs  overshoot");
+        for (int i = 0; i < physics.length; i++) {
+            for (float refreshRate : REFRESH_RATES) {
+                for (int distance : DISTANCES) {
+                    for (float velocity : VELOCITIES) {
+                        final Result r = simulate(physics[i], 0, distance, velocity, refreshRate);
+                        System.out.println(String.format("%-12s %4.0f %9d %9.0f %7d %9s %10d",
+                                names[i], refreshRate, distance, velocity, r.frames,
+                                r.settled ? String.valueOf(r.settleMillis) : "never", r.overshoot));
+                    }
+                }
+            }
+        }
+    }
+}
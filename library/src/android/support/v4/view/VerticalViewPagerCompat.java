@@ -1,11 +1,117 @@
 package android.support.v4.view;
 
+import java.lang.reflect.Field;
+
 public final class VerticalViewPagerCompat {
     private VerticalViewPagerCompat() {}
 
-    public interface DataSetObserver extends PagerAdapter.DataSetObserver {}
+    /**
+     * The adapter's observer field, found by its type so that it survives
+     * obfuscation. Whichever pager the adapter was last given to owns the
+     * observer in it, so reading it never finds a pager the adapter left.
+     */
+    private static final Field OBSERVER;
+
+    static {
+        Field observer = null;
+        for (Field field : PagerAdapter.class.getDeclaredFields()) {
+            if (field.getType() == PagerAdapter.DataSetObserver.class) {
+                try {
+                    field.setAccessible(true);
+                    observer = field;
+                } catch (SecurityException e) {
+                    // Range notifications fall back to full data set changes.
+                }
+                break;
+            }
+        }
+        OBSERVER = observer;
+    }
+
+    /**
+     * Observer which, besides full data set changes, can be told which
+     * positions of the adapter changed.
+     */
+    public interface DataSetObserver extends PagerAdapter.DataSetObserver {
+        void onItemRangeInserted(int positionStart, int itemCount);
+
+        void onItemRangeRemoved(int positionStart, int itemCount);
+
+        /**
+         * The block of {@code itemCount} items starting at {@code fromPosition}
+         * moved so that its first item is now at {@code toPosition}.
+         */
+        void onItemRangeMoved(int fromPosition, int toPosition, int itemCount);
+
+        void onItemRangeChanged(int positionStart, int itemCount);
+    }
 
     public static void setDataSetObserver(PagerAdapter adapter, DataSetObserver observer) {
         adapter.setDataSetObserver(observer);
     }
+
+    private static DataSetObserver getDataSetObserver(PagerAdapter adapter) {
+        if (OBSERVER == null) {
+            return null;
+        }
+        try {
+            final Object observer = OBSERVER.get(adapter);
+            return observer instanceof DataSetObserver ? (DataSetObserver) observer : null;
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Notify the pager bound to an adapter that items were inserted. The
+     * adapter's count must already include them. Pagers which do not support
+     * range notifications receive a full data set change instead.
+     */
+    public static void notifyItemRangeInserted(PagerAdapter adapter, int positionStart, int itemCount) {
+        final DataSetObserver observer = getDataSetObserver(adapter);
+        if (observer != null) {
+            observer.onItemRangeInserted(positionStart, itemCount);
+        } else {
+            adapter.notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * Notify the pager bound to an adapter that items were removed. The
+     * adapter's count must already exclude them.
+     */
+    public static void notifyItemRangeRemoved(PagerAdapter adapter, int positionStart, int itemCount) {
+        final DataSetObserver observer = getDataSetObserver(adapter);
+        if (observer != null) {
+            observer.onItemRangeRemoved(positionStart, itemCount);
+        } else {
+            adapter.notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * Notify the pager bound to an adapter that a block of items moved.
+     */
+    public static void notifyItemRangeMoved(PagerAdapter adapter, int fromPosition, int toPosition,
+            int itemCount) {
+        final DataSetObserver observer = getDataSetObserver(adapter);
+        if (observer != null) {
+            observer.onItemRangeMoved(fromPosition, toPosition, itemCount);
+        } else {
+            adapter.notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * Notify the pager bound to an adapter that the content of items changed
+     * and their pages need to be recreated.
+     */
+    public static void notifyItemRangeChanged(PagerAdapter adapter, int positionStart, int itemCount) {
+        final DataSetObserver observer = getDataSetObserver(adapter);
+        if (observer != null) {
+            observer.onItemRangeChanged(positionStart, itemCount);
+        } else {
+            adapter.notifyDataSetChanged();
+        }
+    }
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+/**
+ * {@link PagerPhysics} whose velocity decays exponentially, chosen so that
+ * the pages come to rest exactly at their end. A fling towards the end
+ * which is faster than the friction alone would start with is kept up, and
+ * decays quicker instead.
+ */
+public class DecayPhysics extends PagerPhysics {
+    public static final float DEFAULT_FRICTION = 20;
+
+    /** Distance from the end, in pixels, within which the pages rest. */
+    private static final float REST_DISTANCE = 0.5f;
+
+    private final float mFriction;
+    private int mDistance;
+    private float mDecay;
+
+    public DecayPhysics() {
+        this(DEFAULT_FRICTION);
+    }
+
+    /**
+     * @param friction Rate at which the velocity decays, per second.
+     */
+    public DecayPhysics(float friction) {
+        if (!(friction > 0)) {
+            throw new IllegalArgumentException("Friction must be positive.");
+        }
+        mFriction = friction;
+    }
+
+    @Override
+    protected void onStart(int distance, float velocity) {
+        mDistance = distance;
+        // The start velocity is distance * decay.
+        mDecay = mFriction;
+        if (distance != 0 && velocity / distance > mFriction) {
+            mDecay = velocity / distance;
+        }
+    }
+
+    @Override
+    protected float getOffset(long elapsedMillis) {
+        return mDistance * (1 - remaining(elapsedMillis));
+    }
+
+    @Override
+    protected boolean isAtRest(long elapsedMillis) {
+        return Math.abs(mDistance) * remaining(elapsedMillis) < REST_DISTANCE;
+    }
+
+    /**
+     * Returns the part of the distance left after {@code elapsedMillis}.
+     */
+    private float remaining(long elapsedMillis) {
+        return (float) Math.exp(-mDecay * elapsedMillis / 1000.0);
+    }
+}
@@ -17,7 +17,7 @@
 
 package com.directionalviewpager;
 
-import java.util.ArrayList;
+import java.util.concurrent.Executor;
 import android.content.Context;
 import android.os.Build;
 import android.os.Parcel;
@@ -37,7 +37,6 @@ import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
-import android.widget.Scroller;
 
 /**
  * Layout manager that allows the user to flip horizontally or vertically
@@ -51,48 +50,90 @@ import android.widget.Scroller;
  */
 public class DirectionalViewPager extends ViewPager {
     private static final String TAG = "DirectionalViewPager";
+    static final int RANGE_INSERTED = 0;
+    static final int RANGE_REMOVED = 1;
+    static final int RANGE_MOVED = 2;
+    static final int RANGE_CHANGED = 3;
+
     private static final String XML_NS = "http://schemas.android.com/apk/res/android";
-    private static final boolean DEBUG = false;
+    static final boolean DEBUG = false;
+
+    private static final int DEFAULT_PREFETCH_DISTANCE = 1;
+    private static final int DEFAULT_LONG_JUMP_THRESHOLD = 3;
+    private static final int DEFAULT_WARM_PAGES = 2;
 
-    private static final boolean USE_CACHE = false;
+    /** Longest scroll animation, in pixels, safe from int overflow. */
+    private static final long MAX_SCROLL_DISTANCE = Integer.MAX_VALUE / 2;
 
     public static final int HORIZONTAL = 0;
     public static final int VERTICAL = 1;
 
-    static class ItemInfo {
-        Object object;
-        int position;
-        boolean scrolling;
+    /**
+     * Layout parameters for pages of a {@link DirectionalViewPager}. They
+     * remember which item a page belongs to so that layout does not need to
+     * ask the adapter about every page.
+     */
+    public static class LayoutParams extends ViewGroup.LayoutParams {
+        ItemInfo info;
+        boolean scrollingLayer;
+        /** Specs the page was last measured with, to skip measuring it again. */
+        int widthMeasureSpec;
+        int heightMeasureSpec;
+
+        public LayoutParams() {
+            super(FILL_PARENT, FILL_PARENT);
+        }
+
+        public LayoutParams(Context context, AttributeSet attrs) {
+            super(context, attrs);
+        }
+
+        public LayoutParams(ViewGroup.LayoutParams source) {
+            super(source);
+        }
     }
 
-    private final ArrayList<ItemInfo> mItems = new ArrayList<ItemInfo>();
+    final PageWindow mWindow = new PageWindow(new PagerWindowHost(this));
+    private final ItemInfoBuffer mItems = mWindow.getItems();
 
     private PagerAdapter mAdapter;
     private int mCurItem;   // Index of currently displayed page.
+    private int mOriginItem;   // Index of the page at scroll position 0.
+    private boolean mVirtualOriginEnabled;
     private int mRestoredCurItem = -1;
     private Parcelable mRestoredAdapterState = null;
     private ClassLoader mRestoredClassLoader = null;
-    private Scroller mScroller;
+    private String mRestoredSpillKey = null;
+    private String mSpillKey;   // Key of the state last spilled by this pager.
+    private int mMaxSavedStateBytes = Integer.MAX_VALUE;
     private VerticalViewPagerCompat.DataSetObserver mObserver;
+    RecycledPagePool mRecycledPagePool;
+    boolean mRecycledPagePoolShared;
+    final WarmPageCache mWarmPages =
+            new WarmPageCache(new PagerWarmPageHost(this), DEFAULT_WARM_PAGES, Long.MAX_VALUE);
 
     private int mChildWidthMeasureSpec;
     private int mChildHeightMeasureSpec;
     private boolean mInLayout;
+    private ItemInfo mAddingItem;
+
+    final PagePrefetcher mPrefetcher = new PagePrefetcher();
+    private int mPrefetchDistance = DEFAULT_PREFETCH_DISTANCE;
+    private int mLongJumpThreshold = DEFAULT_LONG_JUMP_THRESHOLD;
 
     private boolean mScrollingCacheEnabled;
+    private boolean mScrollingLayersEnabled;
 
     private boolean mPopulatePending;
+    private boolean mPopulatingForSettle;   // Pages added now will scroll in.
+    private boolean mDiscardingPages;   // Pages destroyed now are out of date.
     private boolean mScrolling;
 
     private boolean mIsBeingDragged;
     private boolean mIsUnableToDrag;
-    private int mTouchSlop;
-    private float mInitialMotion;
-    /**
-     * Position of the last motion event.
-     */
-    private float mLastMotionX;
-    private float mLastMotionY;
+    private final DragTracker mDragTracker = new DragTracker();
+    private boolean mTouchPredictionEnabled;
+    private float mFrameIntervalMillis;
     private int mOrientation = HORIZONTAL;
     /**
      * ID of the active pointer. This is used to retain consistency during
@@ -112,9 +153,15 @@ public class DirectionalViewPager extends ViewPager {
     private int mMinimumVelocity;
     private int mMaximumVelocity;
 
-    private OnPageChangeListener mOnPageChangeListener;
+    private final PageScrollDispatcher mScrollDispatcher = new PageScrollDispatcher();
+    private final PlaceholderBinder mPlaceholderBinder = new PlaceholderBinder(new PagerBinderHost(this), mItems);
+    private final SettleAnimator mSettleAnimator = new SettleAnimator(this, new PagerSettleHost(this));
+    private final MemoryTrimmer mTrimmer = new MemoryTrimmer(this, new PagerTrimHost(this),
+            mWindow.getLimitBefore(), mWindow.getLimitAfter());
+    final PagerProbe mProbe = new PagerProbe();
+    private GestureRecorder mGestureRecorder;
 
-    private int mScrollState = SCROLL_STATE_IDLE;
+    int mScrollState = SCROLL_STATE_IDLE;
 
     public DirectionalViewPager(Context context) {
         super(context);
@@ -134,9 +181,8 @@ public class DirectionalViewPager extends ViewPager {
 
     void initViewPager() {
         setWillNotDraw(false);
-        mScroller = new Scroller(getContext());
         final ViewConfiguration configuration = ViewConfiguration.get(getContext());
-        mTouchSlop = ViewConfigurationCompat.getScaledPagingTouchSlop(configuration);
+        mDragTracker.setTouchSlop(ViewConfigurationCompat.getScaledPagingTouchSlop(configuration));
         mMinimumVelocity = configuration.getScaledMinimumFlingVelocity();
         mMaximumVelocity = configuration.getScaledMaximumFlingVelocity();
     }
@@ -146,10 +192,57 @@ public class DirectionalViewPager extends ViewPager {
             return;
         }
 
+        if (PagerTrace.sEnabled) {
+            PagerTrace.scrollStateChanged(this, mScrollState, newState);
+        }
         mScrollState = newState;
-        if (mOnPageChangeListener != null) {
-            mOnPageChangeListener.onPageScrollStateChanged(newState);
+        if (newState == SCROLL_STATE_IDLE) {
+            setScrollingCacheEnabled(false);
+            // Report where the scroll ended before saying that it did.
+            dispatchPendingScroll();
+            mPlaceholderBinder.schedule();
         }
+        mScrollDispatcher.dispatchPageScrollStateChanged(newState);
+    }
+
+    private void dispatchPageSelected(int position) {
+        mScrollDispatcher.dispatchPageSelected(position);
+    }
+
+    /**
+     * Report the scroll position to the listeners and transform the pages if
+     * anything moved since the last time. Called once per frame, so that
+     * every touch event and settle step in between costs only the flag set
+     * in {@link #onScrollChanged(int, int, int, int)}.
+     */
+    void dispatchPendingScroll() {
+        if (mOrientation == HORIZONTAL) {
+            mScrollDispatcher.dispatchPendingScroll(this, mOriginItem, getScrollX(), getWidth());
+        } else {
+            mScrollDispatcher.dispatchPendingScroll(this, mOriginItem, getScrollY(), getHeight());
+        }
+    }
+
+    /**
+     * Set a {@link PageTransformer} which is called for every page as the
+     * pager scrolls, with the page's offset from the current scroll
+     * position. Every retained page it transforms is drawn through a
+     * hardware layer while the pager moves, whether or not
+     * {@link #setScrollingLayersEnabled(boolean)} is set.
+     *
+     * <p>Page transformations rely on view properties, so the transformer is
+     * ignored before Android 3.0. Removing it leaves the pages as it last
+     * transformed them.</p>
+     *
+     * @param transformer Transformer to use, or {@code null} to remove it.
+     */
+    public void setPageTransformer(PageTransformer transformer) {
+        if (!PagerCompat.isViewPropertySupported()) {
+            return;
+        }
+        mScrollDispatcher.setPageTransformer(transformer);
+        updateScrollingLayers();
+        invalidate();
     }
 
     public void setAdapter(PagerAdapter adapter) {
@@ -157,20 +250,28 @@ public class DirectionalViewPager extends ViewPager {
             VerticalViewPagerCompat.setDataSetObserver(mAdapter, null);
         }
 
+        mWarmPages.clear();
+        if (mAdapter != adapter && mRecycledPagePool != null && !mRecycledPagePoolShared) {
+            // Pages of the old adapter are of no use to the new one.
+            mRecycledPagePool.clear();
+        }
+        mPrefetcher.cancelAll();
         mAdapter = adapter;
 
         if (mAdapter != null) {
             if (mObserver == null) {
-                mObserver = new DataSetObserver();
+                mObserver = new PagerDataSetObserver(this);
             }
             VerticalViewPagerCompat.setDataSetObserver(mAdapter, mObserver);
             mPopulatePending = false;
             if (mRestoredCurItem >= 0) {
-                mAdapter.restoreState(mRestoredAdapterState, mRestoredClassLoader);
+                mAdapter.restoreState(SavedStateSpill.load(getContext(), mRestoredAdapterState,
+                        mRestoredSpillKey, mRestoredClassLoader), mRestoredClassLoader);
                 setCurrentItemInternal(mRestoredCurItem, false, true);
                 mRestoredCurItem = -1;
                 mRestoredAdapterState = null;
                 mRestoredClassLoader = null;
+                mRestoredSpillKey = null;
             } else {
                 populate();
             }
@@ -181,12 +282,44 @@ public class DirectionalViewPager extends ViewPager {
         return mAdapter;
     }
 
+    /**
+     * Returns the pool into which pages of a {@link RecyclingPagerAdapter} are
+     * placed when they leave the window of retained pages.
+     */
+    public RecycledPagePool getRecycledPagePool() {
+        if (mRecycledPagePool == null) {
+            mRecycledPagePool = new RecycledPagePool();
+            mRecycledPagePoolShared = false;
+        }
+        return mRecycledPagePool;
+    }
+
+    /**
+     * Set the pool into which pages of a {@link RecyclingPagerAdapter} are
+     * placed when they leave the window of retained pages. Sharing one pool
+     * between several pagers lets them reuse each other's pages.
+     *
+     * @param pool Pool to use, or {@code null} to use a private pool.
+     */
+    public void setRecycledPagePool(RecycledPagePool pool) {
+        mRecycledPagePool = pool;
+        mRecycledPagePoolShared = pool != null;
+    }
+
     public void setCurrentItem(int item) {
         mPopulatePending = false;
         setCurrentItemInternal(item, true, false);
     }
 
     void setCurrentItemInternal(int item, boolean smoothScroll, boolean always) {
+        setCurrentItemInternal(item, smoothScroll, always, 0);
+    }
+
+    /**
+     * @param velocity Velocity of the pages to start a smooth scroll with, in
+     * pixels per second towards later pages.
+     */
+    void setCurrentItemInternal(int item, boolean smoothScroll, boolean always, float velocity) {
         if (mAdapter == null || mAdapter.getCount() <= 0) {
             setScrollingCacheEnabled(false);
             return;
@@ -200,41 +333,337 @@ public class DirectionalViewPager extends ViewPager {
         } else if (item >= mAdapter.getCount()) {
             item = mAdapter.getCount() - 1;
         }
-        if (item > (mCurItem+1) || item < (mCurItem-1)) {
-            // We are doing a jump by more than one page.  To avoid
-            // glitches, we want to keep all current pages in the view
-            // until the scroll ends.
-            for (int i=0; i<mItems.size(); i++) {
-                mItems.get(i).scrolling = true;
-            }
+        final long distance = Math.abs((long) item - mCurItem);
+        final boolean longJump = smoothScroll && (distance > mLongJumpThreshold
+                || distance * Math.max(getWidth(), getHeight()) > MAX_SCROLL_DISTANCE);
+        if (longJump) {
+            // Scrolling through every page in between would take a frame
+            // per few pixels of the distance. Build the pages around the new
+            // item instead, dropping the old ones, and only scroll the last
+            // page of the way.
+            mWindow.clearScrolling();
+        } else if (mWindow.isJump(mCurItem, item)) {
+            // We are doing a jump past the pages that will be kept around
+            // the new item.  To avoid glitches, we want to keep all current
+            // pages in the view until the scroll ends.
+            mWindow.markScrolling();
         }
         final boolean dispatchSelected = mCurItem != item;
+        // The page a long jump scrolls in from, unless a trimmed window has no room for it.
+        final int lead = item > mCurItem ? item - Math.min(1, mWindow.getLimitBefore())
+                : item + Math.min(1, mWindow.getLimitAfter());
         mCurItem = item;
-        populate();
+        if (smoothScroll && mAdapter instanceof PlaceholderAdapter) {
+            // Placeholders are cheap enough to add as the settle starts, so
+            // the pages around the new item need not wait for it to end.
+            // The new item itself is shown at the end, so it is bound now.
+            mPopulatePending = false;
+            mPopulatingForSettle = true;
+            populate();
+            mPopulatingForSettle = false;
+            // Binds them if the pager ends up not scrolling at all.
+            mPlaceholderBinder.schedule();
+        } else {
+            populate();
+        }
         if (smoothScroll) {
+            if (longJump) {
+                if (mVirtualOriginEnabled) {
+                    rebaseOrigin(item);
+                }
+                if (mOrientation == HORIZONTAL) {
+                    scrollTo(pageScroll(lead, getWidth()), getScrollY());
+                } else {
+                    scrollTo(getScrollX(), pageScroll(lead, getHeight()));
+                }
+            }
             if (mOrientation == HORIZONTAL) {
-                smoothScrollTo(getWidth()*item, 0);
+                smoothScrollTo(pageScroll(item, getWidth()), 0, velocity);
             } else {
-                smoothScrollTo(0, getHeight()*item);
+                smoothScrollTo(0, pageScroll(item, getHeight()), velocity);
             }
-            if (dispatchSelected && mOnPageChangeListener != null) {
-                mOnPageChangeListener.onPageSelected(item);
+            if (dispatchSelected) {
+                dispatchPageSelected(item);
             }
         } else {
-            if (dispatchSelected && mOnPageChangeListener != null) {
-                mOnPageChangeListener.onPageSelected(item);
+            if (dispatchSelected) {
+                dispatchPageSelected(item);
             }
+            // Also moves the virtual origin to the new item.
             completeScroll();
             if (mOrientation == HORIZONTAL) {
-                scrollTo(getWidth()*item, 0);
+                scrollTo(pageScroll(item, getWidth()), 0);
             } else {
-                scrollTo(0, getHeight()*item);
+                scrollTo(0, pageScroll(item, getHeight()));
             }
         }
     }
 
+    /**
+     * Returns how many pages {@link #setCurrentItem(int)} will scroll through
+     * before it skips to the page next to the new item.
+     *
+     * @see #setLongJumpThreshold(int)
+     */
+    public int getLongJumpThreshold() {
+        return mLongJumpThreshold;
+    }
+
+    /**
+     * Set how many pages {@link #setCurrentItem(int)} will scroll through.
+     * Longer jumps create the pages around the new item first and scroll in
+     * from the page next to it, so their time and memory cost does not grow
+     * with the distance.
+     *
+     * <p>The default is 3.</p>
+     *
+     * @param pages Largest distance to scroll all the way, at least 1.
+     */
+    public void setLongJumpThreshold(int pages) {
+        if (pages < 1) {
+            throw new IllegalArgumentException("Long jump threshold must be at least 1.");
+        }
+        mLongJumpThreshold = pages;
+    }
+
     public void setOnPageChangeListener(OnPageChangeListener listener) {
-        mOnPageChangeListener = listener;
+        mScrollDispatcher.setOnPageChangeListener(listener);
+    }
+
+    /**
+     * Add a listener for the scroll position, selected page and scroll
+     * state. Unlike {@link #setOnPageChangeListener(OnPageChangeListener)},
+     * any number of listeners can be added, and scroll changes are reported
+     * at most once per frame.
+     */
+    public void addOnPageScrollListener(OnPageScrollListener listener) {
+        mScrollDispatcher.addListener(listener);
+    }
+
+    /**
+     * Remove a listener added by
+     * {@link #addOnPageScrollListener(OnPageScrollListener)}.
+     */
+    public void removeOnPageScrollListener(OnPageScrollListener listener) {
+        mScrollDispatcher.removeListener(listener);
+    }
+
+    /**
+     * Returns the number of pages that will be retained to either side of the
+     * current page in the view hierarchy in an idle state. If the limits
+     * before and after the current page differ, the larger one is returned.
+     *
+     * @return How many pages will be kept offscreen in an idle state.
+     * @see #setOffscreenPageLimit(int)
+     */
+    public int getOffscreenPageLimit() {
+        return Math.max(mTrimmer.getLimitBefore(), mTrimmer.getLimitAfter());
+    }
+
+    /**
+     * Returns the number of pages that will be retained before the current
+     * page in the view hierarchy in an idle state.
+     *
+     * @see #setOffscreenPageLimit(int, int)
+     */
+    public int getOffscreenPageLimitBefore() {
+        return mTrimmer.getLimitBefore();
+    }
+
+    /**
+     * Returns the number of pages that will be retained after the current
+     * page in the view hierarchy in an idle state.
+     *
+     * @see #setOffscreenPageLimit(int, int)
+     */
+    public int getOffscreenPageLimitAfter() {
+        return mTrimmer.getLimitAfter();
+    }
+
+    /**
+     * Set the number of pages that should be retained to either side of the
+     * current page in the view hierarchy in an idle state. Pages beyond this
+     * limit will be recreated from the adapter when needed.
+     *
+     * <p>This is offered as an optimization. If you know in advance the number
+     * of pages you will need to support or have lazy-loading mechanisms in place
+     * on your pages, tweaking this setting can have benefits in perceived smoothness
+     * of paging animations and interaction. Larger values also allow the user to
+     * drag across more than one page in a single gesture.</p>
+     *
+     * <p>The default is 1 on each side.</p>
+     *
+     * @param limit How many pages will be kept offscreen in an idle state.
+     */
+    public void setOffscreenPageLimit(int limit) {
+        setOffscreenPageLimit(limit, limit);
+    }
+
+    /**
+     * Set the number of pages that should be retained before and after the
+     * current page in the view hierarchy in an idle state. This allows, for
+     * example, keeping more pages ahead of the user than behind them.
+     *
+     * @param before How many pages before the current page will be kept offscreen.
+     * @param after How many pages after the current page will be kept offscreen.
+     * @see #setOffscreenPageLimit(int)
+     */
+    public void setOffscreenPageLimit(int before, int after) {
+        if (before < 0 || after < 0) {
+            throw new IllegalArgumentException("Offscreen page limits must not be negative.");
+        }
+        if (before != mTrimmer.getLimitBefore() || after != mTrimmer.getLimitAfter()) {
+            mTrimmer.setLimits(before, after);
+        }
+    }
+
+    /**
+     * Returns how many pages the window of retained pages spans right now,
+     * including the current page. This is less than the offscreen page
+     * limits allow while the window is trimmed.
+     *
+     * @see #onTrimMemory(int)
+     */
+    public int getWindowSize() {
+        return mWindow.getLimitBefore() + 1 + mWindow.getLimitAfter();
+    }
+
+    /**
+     * Returns the most severe trim level the window is still recovering
+     * from, or 0 once it has grown back to its limits.
+     */
+    public int getTrimMemoryLevel() {
+        return mTrimmer.getTrimLevel();
+    }
+
+    /**
+     * Returns how many times the window was trimmed.
+     */
+    public int getTrimMemoryCount() {
+        return mTrimmer.getTrimCount();
+    }
+
+    /**
+     * Release memory at a {@code ComponentCallbacks2} trim level. At
+     * {@code TRIM_MEMORY_RUNNING_MODERATE} and above the pager keeps only the
+     * current page and drops its warm pages, prefetched data and recycled
+     * pages, unless the pool came from {@link #setRecycledPagePool}. The
+     * window grows back a page at a time once the pressure eases, or all at
+     * once when the pager is shown again after being trimmed in the
+     * background. {@code TRIM_MEMORY_UI_HIDDEN} is ignored while the pager
+     * is still shown.
+     *
+     * <p>From Android 4.0 on the pager receives the application's trim levels
+     * while it is attached, so this only needs to be called for other
+     * sources of memory pressure.</p>
+     */
+    public void onTrimMemory(int level) {
+        mTrimmer.trim(level);
+    }
+
+    /**
+     * Returns how many pages beyond the retained window are prefetched.
+     *
+     * @see #setPrefetchDistance(int)
+     */
+    public int getPrefetchDistance() {
+        return mPrefetchDistance;
+    }
+
+    /**
+     * Set how many pages beyond the retained window on either side have their
+     * data loaded in the background when the adapter implements
+     * {@link PrefetchingAdapter}. Pages inside the window which have not been
+     * instantiated yet, such as the pages around the target of a fling, are
+     * always prefetched. The default is 1.
+     */
+    public void setPrefetchDistance(int distance) {
+        if (distance < 0) {
+            throw new IllegalArgumentException("Prefetch distance must not be negative.");
+        }
+        mPrefetchDistance = distance;
+    }
+
+    /**
+     * Set the executor on which {@link PrefetchingAdapter#prefetchItem(int)}
+     * runs. By default a single low-priority thread shared by all pagers is
+     * used.
+     *
+     * @param executor Executor to use, or {@code null} for the default.
+     */
+    public void setPrefetchExecutor(Executor executor) {
+        mPrefetcher.setExecutor(executor);
+    }
+
+    /**
+     * Returns whether pages are drawn through hardware layers while the
+     * pager is being dragged or is settling.
+     *
+     * @see #setScrollingLayersEnabled(boolean)
+     */
+    public boolean isScrollingLayersEnabled() {
+        return mScrollingLayersEnabled;
+    }
+
+    /**
+     * Draw the current page and its immediate neighbours through hardware
+     * layers while the pager is being dragged or is settling, so that their
+     * view trees do not need to be redrawn on every frame of the scroll. The
+     * layers are released as soon as the pager becomes idle.
+     *
+     * <p>This requires a hardware accelerated window on Android 3.0 or newer
+     * and has no effect otherwise. It is disabled by default.</p>
+     */
+    public void setScrollingLayersEnabled(boolean enabled) {
+        if (mScrollingLayersEnabled != enabled) {
+            mScrollingLayersEnabled = enabled;
+            updateScrollingLayers();
+        }
+    }
+
+    public PagerPhysics getPagerPhysics() {
+        return mSettleAnimator.getPhysics();
+    }
+
+    /**
+     * Set how released drags pick their page and how the pages settle there.
+     * Defaults to a {@link FixedDurationPhysics}. A settle in progress is
+     * finished immediately.
+     *
+     * @see SpringPhysics
+     * @see DecayPhysics
+     */
+    public void setPagerPhysics(PagerPhysics physics) {
+        if (physics == null) {
+            throw new IllegalArgumentException("Pager physics must not be null.");
+        }
+        if (mSettleAnimator.isRunning()) {
+            completeScroll();
+        }
+        mSettleAnimator.setPhysics(physics);
+    }
+
+    /**
+     * Set a listener which receives the time spent populating, measuring and
+     * laying out pages, creating and destroying them, and animating scrolls.
+     * When no listener is set the pager does not read the clock at all.
+     *
+     * @param listener Listener to notify, or {@code null} to stop measuring.
+     * @see PagerMetrics
+     */
+    public void setMetricsListener(PagerMetricsListener listener) {
+        mProbe.setMetricsListener(listener);
+        mSettleAnimator.setMetricsListener(listener);
+    }
+
+    /**
+     * Record every touch event the pager receives, to be played back with a
+     * {@link GestureReplayer}.
+     *
+     * @param recorder Recorder to use, or {@code null} to stop recording.
+     */
+    public void setGestureRecorder(GestureRecorder recorder) {
+        mGestureRecorder = recorder;
     }
 
     /**
@@ -244,6 +673,14 @@ public class DirectionalViewPager extends ViewPager {
      * @param dy the number of pixels to scroll by on the Y axis
      */
     void smoothScrollTo(int x, int y) {
+        smoothScrollTo(x, y, 0);
+    }
+
+    /**
+     * Like {@link #smoothScrollTo(int, int)}, starting with the pages moving
+     * at {@code velocity} pixels per second along the orientation.
+     */
+    void smoothScrollTo(int x, int y, float velocity) {
         if (getChildCount() == 0) {
             // Nothing to do.
             setScrollingCacheEnabled(false);
@@ -261,75 +698,319 @@ public class DirectionalViewPager extends ViewPager {
         setScrollingCacheEnabled(true);
         mScrolling = true;
         setScrollState(SCROLL_STATE_SETTLING);
-        mScroller.startScroll(sx, sy, dx, dy);
-        invalidate();
+        // Only the orientation's axis is animated; the other one is snapped.
+        if (mOrientation == HORIZONTAL) {
+            if (dy != 0) {
+                scrollTo(sx, y);
+            }
+            mSettleAnimator.start(sx, x, velocity, getFrameIntervalMillis());
+        } else {
+            if (dx != 0) {
+                scrollTo(x, sy);
+            }
+            mSettleAnimator.start(sy, y, velocity, getFrameIntervalMillis());
+        }
+    }
+
+    void addNewItem(ItemInfo ii) {
+        final int position = ii.position;
+        if (DEBUG) Log.i(TAG, "adding: " + position);
+        final View warmPage;
+        if (mAdapter instanceof RecyclingPagerAdapter) {
+            ii.viewType = ((RecyclingPagerAdapter) mAdapter).getItemViewType(position);
+            warmPage = mWarmPages.take(position, ii.viewType);
+        } else {
+            ii.viewType = 0;
+            warmPage = null;
+        }
+        // A warm page is still bound, so only a new page needs the data.
+        if (warmPage == null && mAdapter instanceof PrefetchingAdapter) {
+            final Object data = mPrefetcher.take(position);
+            if (data != PagePrefetcher.NO_DATA) {
+                ((PrefetchingAdapter) mAdapter).onItemPrefetched(position, data);
+            }
+        }
+        final long start = mProbe.begin(PagerMetricsListener.EVENT_INSTANTIATE_ITEM, position);
+        // Pages added while the item is instantiated are tagged with it.
+        mAddingItem = ii;
+        if (warmPage != null) {
+            reattachPage(warmPage, ii);
+            ii.object = warmPage;
+        } else if ((mScrollState != SCROLL_STATE_IDLE
+                || mPopulatingForSettle && position != mCurItem)
+                && mAdapter instanceof PlaceholderAdapter) {
+            // Keep the frames of the scroll cheap; the page is bound once it ends.
+            ii.placeholder = true;
+            ii.object = ((PlaceholderAdapter) mAdapter).instantiatePlaceholder(this, position);
+        } else if (mAdapter instanceof RecyclingPagerAdapter) {
+            final View convertView = getRecycledPagePool().getRecycledPage(ii.viewType);
+            final View page = ((RecyclingPagerAdapter) mAdapter).getView(position, convertView, this);
+            addView(page);
+            ii.object = page;
+        } else {
+            ii.object = mAdapter.instantiateItem(this, position);
+        }
+        mAddingItem = null;
+        if (mAdapter instanceof StableIdAdapter) {
+            ii.id = ((StableIdAdapter) mAdapter).getItemId(position);
+        }
+        mProbe.end(PagerMetricsListener.EVENT_INSTANTIATE_ITEM, start);
     }
 
-    void addNewItem(int position, int index) {
-        ItemInfo ii = new ItemInfo();
-        ii.position = position;
-        ii.object = mAdapter.instantiateItem(this, position);
-        if (index < 0) {
-            mItems.add(ii);
+    void destroyItem(ItemInfo ii) {
+        if (DEBUG) Log.i(TAG, "removing: " + ii.position);
+        final long start = mProbe.begin(PagerMetricsListener.EVENT_DESTROY_ITEM, ii.position);
+        if (ii.placeholder) {
+            // Not what getView() expects as a convertView, so never pooled.
+            ii.placeholder = false;
+            mAdapter.destroyItem(this, ii.position, ii.object);
+        } else if (mAdapter instanceof RecyclingPagerAdapter) {
+            final View page = (View) ii.object;
+            if (mWarmPages.getMaxPages() > 0 && !mDiscardingPages && page.getParent() == this
+                    && page.getLayoutParams() instanceof LayoutParams) {
+                // Keep the page bound, but out of measure, layout and draw,
+                // in case the user comes back to it.
+                ((LayoutParams) page.getLayoutParams()).info = null;
+                detachViewFromParent(page);
+                invalidate();
+                mWarmPages.put(ii.position, ii.viewType, page);
+            } else {
+                removeView(page);
+                getRecycledPagePool().putRecycledPage(ii.viewType, page);
+            }
         } else {
-            mItems.add(index, ii);
+            mAdapter.destroyItem(this, ii.position, ii.object);
         }
+        // Pages which outlive their item must not be matched to it any more.
+        ii.object = null;
+        mProbe.end(PagerMetricsListener.EVENT_DESTROY_ITEM, start);
+    }
+
+    /** Finish removing a page evicted from the warm tier. */
+    void removeWarmPage(View page) {
+        removeDetachedView(page, false);
+    }
+
+    void bindPlaceholders() {
+        if (!(mAdapter instanceof PlaceholderAdapter)) {
+            return;
+        }
+        mAdapter.startUpdate(this);
+        // The current page is the one the user waits for.
+        final int current = mItems.indexOfPosition(mCurItem);
+        if (current >= 0) {
+            bindPlaceholder(mItems.get(current));
+        }
+        for (int i = 0; i < mItems.size(); i++) {
+            bindPlaceholder(mItems.get(i));
+        }
+        mAdapter.finishUpdate(this);
+    }
+
+    private void bindPlaceholder(ItemInfo ii) {
+        if (!ii.placeholder) {
+            return;
+        }
+        if (DEBUG) Log.i(TAG, "binding: " + ii.position);
+        final long start = mProbe.begin(PagerMetricsListener.EVENT_INSTANTIATE_ITEM, ii.position);
+        ii.placeholder = false;
+        mAddingItem = ii;
+        ((PlaceholderAdapter) mAdapter).bindPlaceholder(this, ii.position, ii.object);
+        mAddingItem = null;
+        mProbe.end(PagerMetricsListener.EVENT_INSTANTIATE_ITEM, start);
+    }
+
+    /**
+     * Put a page kept by the warm tier back in place of a new one.
+     */
+    private void reattachPage(View page, ItemInfo ii) {
+        final LayoutParams lp = (LayoutParams) page.getLayoutParams();
+        lp.info = ii;
+        attachViewToParent(page, -1, lp);
+        // Nothing asks for a layout, so bring the page up to date here.
+        measurePage(page);
+        final int size = (mOrientation == HORIZONTAL) ? getWidth() : getHeight();
+        if (size > 0) {
+            layoutChild(page, ii, size);
+        }
+        if (usesScrollingLayers()) {
+            updateScrollingLayer(page);
+        }
+        mScrollDispatcher.invalidateTransform();
+        invalidate();
+    }
+
+    /**
+     * Returns the number of pages kept detached by the warm tier.
+     *
+     * @see #setWarmPageLimits(int, long)
+     */
+    public int getWarmPageLimit() {
+        return mWarmPages.getMaxPages();
+    }
+
+    /**
+     * Returns the estimated memory that may be held by pages kept detached
+     * by the warm tier, in bytes.
+     *
+     * @see #setWarmPageLimits(int, long)
+     */
+    public long getWarmPageByteLimit() {
+        return mWarmPages.getMaxBytes();
+    }
+
+    /**
+     * Set how many pages of a {@link RecyclingPagerAdapter} are kept after
+     * they leave the offscreen page limit. Such pages are detached from the
+     * pager, so they are not measured, laid out or drawn, but they stay
+     * bound. Scrolling back to one reattaches it without calling
+     * {@link RecyclingPagerAdapter#getView(int, View, ViewGroup)}. The least
+     * recently used pages beyond either limit go to the
+     * {@link RecycledPagePool}, as do all of them when the data set changes.
+     *
+     * <p>The default is 2 pages without a memory limit.</p>
+     *
+     * @param maxPages Most pages to keep, or 0 to disable the warm tier.
+     * @param maxBytes Most memory to keep, estimated as 4 bytes per pixel
+     *            of each page.
+     */
+    public void setWarmPageLimits(int maxPages, long maxBytes) {
+        if (maxPages < 0 || maxBytes < 0) {
+            throw new IllegalArgumentException("Warm page limits must not be negative.");
+        }
+        mWarmPages.setLimits(maxPages, maxBytes);
     }
 
     void dataSetChanged() {
         // This method only gets called if our observer is attached, so mAdapter is non-null.
+        final long start = mProbe.begin(PagerMetricsListener.EVENT_DATA_SET_CHANGED);
 
-        boolean needPopulate = mItems.isEmpty() && mAdapter.getCount() > 0;
-        int newCurrItem = -1;
+        // Loads in flight may be for pages which have since moved.
+        mPrefetcher.cancelAll();
 
-        for (int i = 0; i < mItems.size(); i++) {
-            final ItemInfo ii = mItems.get(i);
-            final int newPos = mAdapter.getItemPosition(ii.object);
+        final boolean needPopulate = mWindow.dataSetChanged(mCurItem, mAdapter.getCount());
+        // Kept pages may be at other positions now, or gone.
+        mWarmPages.clear();
+        itemsChanged(needPopulate);
 
-            if (newPos == PagerAdapter.POSITION_UNCHANGED) {
-                continue;
-            }
+        mProbe.end(PagerMetricsListener.EVENT_DATA_SET_CHANGED, start);
+    }
 
-            if (newPos == PagerAdapter.POSITION_NONE) {
-                mItems.remove(i);
-                i--;
-                mAdapter.destroyItem(this, ii.position, ii.object);
-                needPopulate = true;
+    /**
+     * Called when a range of positions changed in the adapter. Only the
+     * retained pages in or after the range are touched; changes after the
+     * window cost next to nothing.
+     */
+    void itemRangeChanged(int type, int positionStart, int positionEnd, int itemCount) {
+        final long start = mProbe.begin(PagerMetricsListener.EVENT_DATA_SET_CHANGED);
 
-                if (mCurItem == ii.position) {
-                    // Keep the current item in the valid range
-                    newCurrItem = Math.max(0, Math.min(mCurItem, mAdapter.getCount() - 1));
-                }
-                continue;
-            }
+        // Loads from the first affected position onwards may be for pages which moved.
+        mPrefetcher.cancelFrom(Math.min(positionStart, positionEnd));
 
-            if (ii.position != newPos) {
-                if (ii.position == mCurItem) {
-                    // Our current item changed position. Follow it.
-                    newCurrItem = newPos;
-                }
+        final int count = mAdapter.getCount();
+        final boolean needPopulate;
+        // Pages destroyed here belong to removed or changed items, so they
+        // must not be kept warm. Warm pages of other items only move along.
+        mDiscardingPages = true;
+        switch (type) {
+            case RANGE_INSERTED:
+                needPopulate = mWindow.itemRangeInserted(mCurItem, positionStart, itemCount, count);
+                mWarmPages.itemRangeInserted(positionStart, itemCount);
+                break;
+            case RANGE_REMOVED:
+                needPopulate = mWindow.itemRangeRemoved(mCurItem, positionStart, itemCount, count);
+                mWarmPages.itemRangeRemoved(positionStart, itemCount);
+                break;
+            case RANGE_MOVED:
+                needPopulate = mWindow.itemRangeMoved(mCurItem, positionStart, positionEnd, itemCount, count);
+                mWarmPages.itemRangeMoved(positionStart, positionEnd, itemCount);
+                break;
+            default:
+                needPopulate = mWindow.itemRangeChanged(positionStart, itemCount);
+                mWarmPages.itemRangeChanged(positionStart, itemCount);
+                break;
+        }
+        mDiscardingPages = false;
+        itemsChanged(needPopulate);
+
+        mProbe.end(PagerMetricsListener.EVENT_DATA_SET_CHANGED, start);
+    }
 
-                ii.position = newPos;
+    private void itemsChanged(boolean needPopulate) {
+        final int newCurrItem = mWindow.getFollowedItem();
+        if (newCurrItem >= 0) {
+            if (mWindow.wasCurrentItemRemoved()) {
+                // The visible page is gone, show whichever took its place.
+                setCurrentItemInternal(newCurrItem, false, true);
                 needPopulate = true;
+            } else {
+                followCurrentItem(newCurrItem);
+            }
+        }
+        if (needPopulate) {
+            final int size = (mOrientation == HORIZONTAL) ? getWidth() : getHeight();
+            if (size > 0 && !isLayoutRequested() && mWindow.isComplete(mCurItem, mAdapter.getCount())) {
+                // Every page is already there, they only need moving.
+                layoutChildren(size);
+                invalidate();
+            } else {
+                populate();
+                requestLayout();
             }
         }
+    }
 
-        if (newCurrItem >= 0) {
-            // TODO This currently causes a jump.
-            setCurrentItemInternal(newCurrItem, false, true);
-            needPopulate = true;
+    /**
+     * Moves the current item to the new position of its page, shifting the
+     * scroll position by the same amount so the page stays where it is on
+     * screen.
+     */
+    private void followCurrentItem(int item) {
+        final int delta = item - mCurItem;
+        mCurItem = item;
+        if (mVirtualOriginEnabled) {
+            // Move the origin along instead, the scroll position stays valid.
+            mOriginItem += delta;
+        } else if (mOrientation == HORIZONTAL) {
+            scrollTo(getScrollX() + getWidth()*delta, getScrollY());
+        } else {
+            scrollTo(getScrollX(), getScrollY() + getHeight()*delta);
         }
-        if (needPopulate) {
-            populate();
-            requestLayout();
+        if (mScrolling) {
+            // Settle towards the same page at its new position.
+            if (mOrientation == HORIZONTAL) {
+                smoothScrollTo(pageScroll(item, getWidth()), 0);
+            } else {
+                smoothScrollTo(0, pageScroll(item, getHeight()));
+            }
         }
+        dispatchPageSelected(item);
     }
 
     void populate() {
+        final long start = mProbe.begin(PagerMetricsListener.EVENT_POPULATE);
+        populateItems();
+        mProbe.end(PagerMetricsListener.EVENT_POPULATE, start);
+    }
+
+    private void populateItems() {
         if (mAdapter == null) {
             return;
         }
 
+        // Start loading the pages we are about to need even if we cannot
+        // create them yet, for example while settling after a fling.
+        if (mAdapter instanceof PrefetchingAdapter) {
+            final long count = mAdapter.getCount();
+            // Nothing is loaded ahead under memory pressure.
+            final int distance = mTrimmer.isTrimmed() ? 0 : mPrefetchDistance;
+            final int start = (int) Math.max(0L,
+                    (long) mCurItem - mWindow.getLimitBefore() - distance);
+            final int end = (int) Math.min(count - 1,
+                    (long) mCurItem + mWindow.getLimitAfter() + distance);
+            mPrefetcher.update((PrefetchingAdapter) mAdapter, start, end, mItems);
+        }
+
         // Bail now if we are waiting to populate.  This is to hold off
         // on creating views from the time the user releases their finger to
         // fling to a new position until we have finished the scroll to
@@ -348,50 +1029,9 @@ public class DirectionalViewPager extends ViewPager {
 
         mAdapter.startUpdate(this);
 
-        final int startPos = mCurItem > 0 ? mCurItem - 1 : mCurItem;
-        final int count = mAdapter.getCount();
-        final int endPos = mCurItem < (count-1) ? mCurItem+1 : count-1;
-
-        if (DEBUG) Log.v(TAG, "populating: startPos=" + startPos + " endPos=" + endPos);
-
-        // Add and remove pages in the existing list.
-        int lastPos = -1;
-        for (int i=0; i<mItems.size(); i++) {
-            ItemInfo ii = mItems.get(i);
-            if ((ii.position < startPos || ii.position > endPos) && !ii.scrolling) {
-                if (DEBUG) Log.i(TAG, "removing: " + ii.position + " @ " + i);
-                mItems.remove(i);
-                i--;
-                mAdapter.destroyItem(this, ii.position, ii.object);
-            } else if (lastPos < endPos && ii.position > startPos) {
-                // The next item is outside of our range, but we have a gap
-                // between it and the last item where we want to have a page
-                // shown.  Fill in the gap.
-                lastPos++;
-                if (lastPos < startPos) {
-                    lastPos = startPos;
-                }
-                while (lastPos <= endPos && lastPos < ii.position) {
-                    if (DEBUG) Log.i(TAG, "inserting: " + lastPos + " @ " + i);
-                    addNewItem(lastPos, i);
-                    lastPos++;
-                    i++;
-                }
-            }
-            lastPos = ii.position;
-        }
-
-        // Add any new pages we need at the end.
-        lastPos = mItems.size() > 0 ? mItems.get(mItems.size()-1).position : -1;
-        if (lastPos < endPos) {
-            lastPos++;
-            lastPos = lastPos > startPos ? lastPos : startPos;
-            while (lastPos <= endPos) {
-                if (DEBUG) Log.i(TAG, "appending: " + lastPos);
-                addNewItem(lastPos, -1);
-                lastPos++;
-            }
-        }
+        if (DEBUG) Log.v(TAG, "populating: startPos=" + mWindow.getStart(mCurItem)
+                + " endPos=" + mWindow.getEnd(mCurItem, mAdapter.getCount()));
+        mWindow.populate(mCurItem, mAdapter.getCount());
 
         if (DEBUG) {
             Log.i(TAG, "Current page list:");
@@ -406,6 +1046,7 @@ public class DirectionalViewPager extends ViewPager {
     public static class SavedState extends BaseSavedState {
         int position;
         Parcelable adapterState;
+        String spillKey;
         ClassLoader loader;
 
         public SavedState(Parcelable superState) {
@@ -417,6 +1058,7 @@ public class DirectionalViewPager extends ViewPager {
             super.writeToParcel(out, flags);
             out.writeInt(position);
             out.writeParcelable(adapterState, flags);
+            out.writeString(spillKey);
         }
 
         @Override
@@ -445,6 +1087,7 @@ public class DirectionalViewPager extends ViewPager {
             }
             position = in.readInt();
             adapterState = in.readParcelable(loader);
+            spillKey = in.readString();
             this.loader = loader;
         }
     }
@@ -455,6 +1098,15 @@ public class DirectionalViewPager extends ViewPager {
         SavedState ss = new SavedState(superState);
         ss.position = mCurItem;
         ss.adapterState = mAdapter.saveState();
+        if (mMaxSavedStateBytes != Integer.MAX_VALUE) {
+            // Only the newest saved state is ever restored.
+            SavedStateSpill.delete(getContext(), mSpillKey);
+            ss.spillKey = SavedStateSpill.spill(getContext(), ss.adapterState, mMaxSavedStateBytes);
+            mSpillKey = ss.spillKey;
+            if (ss.spillKey != null) {
+                ss.adapterState = null;
+            }
+        }
         return ss;
     }
 
@@ -467,15 +1119,57 @@ public class DirectionalViewPager extends ViewPager {
 
         SavedState ss = (SavedState)state;
         super.onRestoreInstanceState(ss.getSuperState());
+        if (ss.loader == null) {
+            // Restored within the process, without going through a parcel.
+            ss.loader = getClass().getClassLoader();
+        }
 
         if (mAdapter != null) {
+            // The file is gone once read, so remember what it held.
+            ss.adapterState = SavedStateSpill.load(getContext(), ss.adapterState, ss.spillKey, ss.loader);
+            ss.spillKey = null;
             mAdapter.restoreState(ss.adapterState, ss.loader);
             setCurrentItemInternal(ss.position, false, true);
         } else {
+            // Leave spilled state on disk until there is an adapter to take it.
             mRestoredCurItem = ss.position;
             mRestoredAdapterState = ss.adapterState;
             mRestoredClassLoader = ss.loader;
+            mRestoredSpillKey = ss.spillKey;
+        }
+    }
+
+    /**
+     * Returns the largest adapter state kept in the saved instance state.
+     *
+     * @see #setMaxSavedStateBytes(int)
+     */
+    public int getMaxSavedStateBytes() {
+        return mMaxSavedStateBytes;
+    }
+
+    /**
+     * Set the largest adapter state, in parcelled bytes, which is kept in
+     * the pager's saved instance state. Larger state is written to a file in
+     * the application's cache directory. Only a key to it is saved, and it is
+     * read back when the state is restored into an adapter.
+     *
+     * <p>The file is written in {@link #onSaveInstanceState()} and read when
+     * the state is restored, both on the UI thread, as the state must be on
+     * disk before the process can be killed. A limit which only spills state
+     * that is genuinely large keeps this off the common path.</p>
+     *
+     * <p>Saved instance state travels through binder transactions, which
+     * fail above a limit of around a megabyte shared by the whole activity.
+     * The default is {@link Integer#MAX_VALUE}, which never spills.</p>
+     *
+     * @param maxBytes Largest adapter state to keep in the parcel.
+     */
+    public void setMaxSavedStateBytes(int maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Saved state size must not be negative.");
         }
+        mMaxSavedStateBytes = maxBytes;
     }
 
     public int getOrientation() {
@@ -500,61 +1194,139 @@ public class DirectionalViewPager extends ViewPager {
         completeScroll();
 
         //Reset values
-        mInitialMotion = 0;
-        mLastMotionX = 0;
-        mLastMotionY = 0;
+        mDragTracker.setHorizontal(orientation == HORIZONTAL);
         if (mVelocityTracker != null) {
             mVelocityTracker.clear();
         }
 
         //Adjust scroll for new orientation
         mOrientation = orientation;
+        final int size;
         if (mOrientation == HORIZONTAL) {
-            scrollTo(mCurItem * getWidth(), 0);
+            scrollTo(pageScroll(mCurItem, getWidth()), 0);
+            size = getWidth();
+        } else {
+            scrollTo(0, pageScroll(mCurItem, getHeight()));
+            size = getHeight();
+        }
+
+        // Page sizes do not depend on the orientation, so the pages only
+        // need moving along the new axis.
+        if (size > 0 && !isLayoutRequested()) {
+            layoutChildren(size);
+            invalidate();
         } else {
-            scrollTo(0, mCurItem * getHeight());
+            requestLayout();
         }
-        requestLayout();
     }
 
     @Override
     public void addView(View child, int index, ViewGroup.LayoutParams params) {
+        if (!checkLayoutParams(params)) {
+            params = generateLayoutParams(params);
+        }
+        final LayoutParams lp = (LayoutParams) params;
+        lp.info = mAddingItem;
+        // Params may come from an earlier parent; never trust their specs.
+        lp.widthMeasureSpec = 0;
+        lp.heightMeasureSpec = 0;
+
         if (mInLayout) {
             addViewInLayout(child, index, params);
-            child.measure(mChildWidthMeasureSpec, mChildHeightMeasureSpec);
+            measurePage(child);
         } else {
             super.addView(child, index, params);
         }
 
-        if (USE_CACHE) {
-            if (child.getVisibility() != GONE) {
-                child.setDrawingCacheEnabled(mScrollingCacheEnabled);
-            } else {
-                child.setDrawingCacheEnabled(false);
-            }
+        if (usesScrollingLayers()) {
+            // Pages added mid-scroll join the cache right away.
+            updateScrollingLayer(child);
         }
     }
 
     ItemInfo infoForChild(View child) {
+        final ViewGroup.LayoutParams params = child.getLayoutParams();
+        final LayoutParams lp = params instanceof LayoutParams ? (LayoutParams) params : null;
+        if (lp != null && lp.info != null && lp.info.object != null
+                && mAdapter.isViewFromObject(child, lp.info.object)) {
+            return lp.info;
+        }
+
+        // Pages can be added outside of addNewItem(), for example by fragment
+        // transactions, so fall back to asking the adapter once.
         for (int i=0; i<mItems.size(); i++) {
             ItemInfo ii = mItems.get(i);
             if (mAdapter.isViewFromObject(child, ii.object)) {
+                if (lp != null) {
+                    lp.info = ii;
+                }
                 return ii;
             }
         }
         return null;
     }
 
+    @Override
+    protected ViewGroup.LayoutParams generateDefaultLayoutParams() {
+        return new LayoutParams();
+    }
+
+    @Override
+    protected ViewGroup.LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+        return new LayoutParams(p);
+    }
+
+    @Override
+    protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+        return p instanceof LayoutParams && super.checkLayoutParams(p);
+    }
+
+    @Override
+    public ViewGroup.LayoutParams generateLayoutParams(AttributeSet attrs) {
+        return new LayoutParams(getContext(), attrs);
+    }
+
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
+        mTrimmer.attach(getContext());
         if (mAdapter != null) {
             populate();
+            if (mScrollState == SCROLL_STATE_IDLE) {
+                mPlaceholderBinder.schedule();
+            }
+        }
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        if (visibility == VISIBLE) {
+            mTrimmer.onWindowVisible();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        mPrefetcher.cancelAll();
+        // Detached pages are not children, so they would never hear of it.
+        mWarmPages.clear();
+        mPlaceholderBinder.cancel();
+        mTrimmer.detach();
+        if (mSettleAnimator.isRunning()) {
+            completeScroll();
+        }
+        if (mVelocityTracker != null) {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
         }
+        super.onDetachedFromWindow();
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        final long start = mProbe.begin(PagerMetricsListener.EVENT_MEASURE);
+
         // For simple implementation, or internal size is always 0.
         // We depend on the container to specify the layout size of
         // our view.  We can't really know what it is since we will be
@@ -581,9 +1353,32 @@ public class DirectionalViewPager extends ViewPager {
             if (child.getVisibility() != GONE) {
                 if (DEBUG) Log.v(TAG, "Measuring #" + i + " " + child
                 + ": " + mChildWidthMeasureSpec + " x " + mChildHeightMeasureSpec);
-                child.measure(mChildWidthMeasureSpec, mChildHeightMeasureSpec);
+                measurePage(child);
             }
         }
+
+        mProbe.end(PagerMetricsListener.EVENT_MEASURE, start);
+    }
+
+    /**
+     * Measure a page unless it was already measured with the current specs
+     * and has not requested a layout since.
+     */
+    private void measurePage(View child) {
+        final ViewGroup.LayoutParams params = child.getLayoutParams();
+        if (!(params instanceof LayoutParams)) {
+            child.measure(mChildWidthMeasureSpec, mChildHeightMeasureSpec);
+            return;
+        }
+        final LayoutParams lp = (LayoutParams) params;
+        if (!child.isLayoutRequested()
+                && lp.widthMeasureSpec == mChildWidthMeasureSpec
+                && lp.heightMeasureSpec == mChildHeightMeasureSpec) {
+            return;
+        }
+        child.measure(mChildWidthMeasureSpec, mChildHeightMeasureSpec);
+        lp.widthMeasureSpec = mChildWidthMeasureSpec;
+        lp.heightMeasureSpec = mChildHeightMeasureSpec;
     }
 
     @Override
@@ -592,13 +1387,13 @@ public class DirectionalViewPager extends ViewPager {
 
         // Make sure scroll position is set correctly.
         if (mOrientation == HORIZONTAL) {
-            int scrollPos = mCurItem*w;
+            int scrollPos = pageScroll(mCurItem, w);
             if (scrollPos != getScrollX()) {
                 completeScroll();
                 scrollTo(scrollPos, getScrollY());
             }
         } else {
-            int scrollPos = mCurItem*h;
+            int scrollPos = pageScroll(mCurItem, h);
             if (scrollPos != getScrollY()) {
                 completeScroll();
                 scrollTo(getScrollX(), scrollPos);
@@ -608,104 +1403,189 @@ public class DirectionalViewPager extends ViewPager {
 
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        final long start = mProbe.begin(PagerMetricsListener.EVENT_LAYOUT);
+
         mInLayout = true;
         populate();
         mInLayout = false;
 
-        final int count = getChildCount();
-        final int size = (mOrientation == HORIZONTAL) ? r-l : b-t;
+        layoutChildren((mOrientation == HORIZONTAL) ? r-l : b-t);
+
+        mProbe.end(PagerMetricsListener.EVENT_LAYOUT, start);
+    }
 
+    private void layoutChildren(int size) {
+        final int count = getChildCount();
         for (int i = 0; i < count; i++) {
             View child = getChildAt(i);
             ItemInfo ii;
             if (child.getVisibility() != GONE && (ii=infoForChild(child)) != null) {
-                int off = size*ii.position;
-                int childLeft = getPaddingLeft();
-                int childTop = getPaddingTop();
-                if (mOrientation == HORIZONTAL) {
-                    childLeft += off;
-                } else {
-                    childTop += off;
-                }
-                if (DEBUG) Log.v(TAG, "Positioning #" + i + " " + child + " f=" + ii.object
-                + ":" + childLeft + "," + childTop + " " + child.getMeasuredWidth()
-                + "x" + child.getMeasuredHeight());
-                child.layout(childLeft, childTop,
-                        childLeft + child.getMeasuredWidth(),
-                        childTop + child.getMeasuredHeight());
+                layoutChild(child, ii, size);
             }
         }
+        // Pages may have been added or moved under the transformer.
+        mScrollDispatcher.invalidateTransform();
+    }
+
+    private void layoutChild(View child, ItemInfo ii, int size) {
+        int off = pageScroll(ii.position, size);
+        int childLeft = getPaddingLeft();
+        int childTop = getPaddingTop();
+        if (mOrientation == HORIZONTAL) {
+            childLeft += off;
+        } else {
+            childTop += off;
+        }
+        if (DEBUG) Log.v(TAG, "Positioning " + child + " f=" + ii.object
+        + ":" + childLeft + "," + childTop + " " + child.getMeasuredWidth()
+        + "x" + child.getMeasuredHeight());
+        child.layout(childLeft, childTop,
+                childLeft + child.getMeasuredWidth(),
+                childTop + child.getMeasuredHeight());
     }
 
     @Override
     public void computeScroll() {
-        if (DEBUG) Log.i(TAG, "computeScroll: finished=" + mScroller.isFinished());
-        if (!mScroller.isFinished()) {
-            if (mScroller.computeScrollOffset()) {
-                if (DEBUG) Log.i(TAG, "computeScroll: still scrolling");
-                int oldX = getScrollX();
-                int oldY = getScrollY();
-                int x = mScroller.getCurrX();
-                int y = mScroller.getCurrY();
-
-                if (oldX != x || oldY != y) {
-                    scrollTo(x, y);
-                }
-
-                if (mOnPageChangeListener != null) {
-                    int size;
-                    int value;
-                    if (mOrientation == HORIZONTAL) {
-                        size = getWidth();
-                        value = x;
-                    } else {
-                        size = getHeight();
-                        value = y;
-                    }
-
-                    final int position = value / size;
-                    final int offsetPixels = value % size;
-                    final float offset = (float) offsetPixels / size;
-                    mOnPageChangeListener.onPageScrolled(position, offset, offsetPixels);
-                }
-
-                // Keep on drawing until the animation has finished.
-                invalidate();
-                return;
-            }
+        if (DEBUG) Log.i(TAG, "computeScroll: settling=" + mSettleAnimator.isRunning());
+        if (mSettleAnimator.isRunning()) {
+            // The settle animation advances from frame callbacks.
+            return;
         }
 
-        // Done with scroll, clean up state.
+        final boolean traced = PagerTrace.sEnabled;
+        if (traced) {
+            PagerTrace.beginSection(PagerTrace.COMPUTE_SCROLL);
+        }
+        // Clean up the state of any previous scroll.
         completeScroll();
+        // Report scrolling done since the last frame, such as by a drag.
+        dispatchPendingScroll();
+        if (traced) {
+            PagerTrace.endSection();
+        }
     }
 
-    private void completeScroll() {
+    @Override
+    protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+        super.onScrollChanged(l, t, oldl, oldt);
+        mScrollDispatcher.onScrollChanged();
+    }
+
+    void completeScroll() {
+        mSettleAnimator.cancel();
         boolean needPopulate;
         if ((needPopulate=mScrolling)) {
             // Done with scroll, no longer want to cache view drawing.
             setScrollingCacheEnabled(false);
-            mScroller.abortAnimation();
-            int oldX = getScrollX();
-            int oldY = getScrollY();
-            int x = mScroller.getCurrX();
-            int y = mScroller.getCurrY();
-            if (oldX != x || oldY != y) {
-                scrollTo(x, y);
-            }
+            scrollAlong(mSettleAnimator.finish());
             setScrollState(SCROLL_STATE_IDLE);
         }
         mPopulatePending = false;
         mScrolling = false;
-        for (int i=0; i<mItems.size(); i++) {
-            ItemInfo ii = mItems.get(i);
-            if (ii.scrolling) {
-                needPopulate = true;
-                ii.scrolling = false;
-            }
+        if (mWindow.clearScrolling()) {
+            needPopulate = true;
         }
         if (needPopulate) {
             populate();
         }
+        if (mVirtualOriginEnabled && !mIsBeingDragged) {
+            rebaseOrigin(mCurItem);
+        }
+    }
+
+    /**
+     * Scroll along the orientation to {@code position}.
+     *
+     * @return Whether the scroll position changed.
+     */
+    boolean scrollAlong(int position) {
+        if (mOrientation == HORIZONTAL) {
+            if (getScrollX() == position) {
+                return false;
+            }
+            scrollTo(position, getScrollY());
+        } else {
+            if (getScrollY() == position) {
+                return false;
+            }
+            scrollTo(getScrollX(), position);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the scroll position at which a page is shown.
+     */
+    private int pageScroll(int position, int size) {
+        return (int) ((long) (position - mOriginItem) * size);
+    }
+
+    /**
+     * Make {@code origin} the page at scroll position 0, moving the scroll
+     * position and the pages along so that nothing moves on screen.
+     */
+    private void rebaseOrigin(int origin) {
+        if (origin == mOriginItem) {
+            return;
+        }
+        final int size = (mOrientation == HORIZONTAL) ? getWidth() : getHeight();
+        final long shift = (long) (origin - mOriginItem) * size;
+        mOriginItem = origin;
+        if (size <= 0) {
+            return;
+        }
+        if (mOrientation == HORIZONTAL) {
+            scrollTo(clampScroll(getScrollX() - shift), getScrollY());
+        } else {
+            scrollTo(getScrollX(), clampScroll(getScrollY() - shift));
+        }
+        layoutChildren(size);
+    }
+
+    private static int clampScroll(long scroll) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, scroll));
+    }
+
+    /**
+     * Returns whether pixel coordinates are kept relative to the current
+     * page.
+     *
+     * @see #setVirtualOriginEnabled(boolean)
+     */
+    public boolean isVirtualOriginEnabled() {
+        return mVirtualOriginEnabled;
+    }
+
+    /**
+     * Set whether the scroll position and page coordinates are kept relative
+     * to the current page rather than to the first one. Pixel coordinates
+     * are ints, so without this a pager overflows them once the current page
+     * is about {@code Integer.MAX_VALUE} pixels from the first, around a
+     * million pages in. With it, adapters may have up to
+     * {@code Integer.MAX_VALUE} pages, for example to wrap around a smaller
+     * data set by starting in the middle, at the same cost as a small one.
+     *
+     * <p>The origin moves to the current page whenever the pager comes to
+     * rest, so {@link #getScrollX()} and {@link #getScrollY()} no longer
+     * reflect the current item. Listeners and page transformers see the same
+     * positions either way.</p>
+     *
+     * @param enabled Whether to move the origin along with the current page.
+     */
+    public void setVirtualOriginEnabled(boolean enabled) {
+        if (mVirtualOriginEnabled != enabled) {
+            mVirtualOriginEnabled = enabled;
+            completeScroll();
+            rebaseOrigin(enabled ? mCurItem : 0);
+        }
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent ev) {
+        if (mGestureRecorder != null) {
+            mGestureRecorder.record(ev);
+        }
+        return super.dispatchTouchEvent(ev);
     }
 
     @Override
@@ -759,43 +1639,19 @@ public class DirectionalViewPager extends ViewPager {
                 }
 
                 final int pointerIndex = MotionEventCompat.findPointerIndex(ev, activePointerId);
-                final float x = MotionEventCompat.getX(ev, pointerIndex);
-                final float y = MotionEventCompat.getY(ev, pointerIndex);
-                final float xDiff = Math.abs(x - mLastMotionX);
-                final float yDiff = Math.abs(y - mLastMotionY);
-                float primaryDiff;
-                float secondaryDiff;
-
-                if (mOrientation == HORIZONTAL) {
-                    primaryDiff = xDiff;
-                    secondaryDiff = yDiff;
-                } else {
-                    primaryDiff = yDiff;
-                    secondaryDiff = xDiff;
-                }
-
-
-                if (DEBUG) Log.v(TAG, "Moved x to " + x + "," + y + " diff=" + xDiff + "," + yDiff);
-
-                if (primaryDiff > mTouchSlop && primaryDiff > secondaryDiff) {
+                final int slop = mDragTracker.checkSlop(ev, pointerIndex, true);
+                if (slop == DragTracker.SLOP_DRAG) {
                     if (DEBUG) Log.v(TAG, "Starting drag!");
-                    mIsBeingDragged = true;
-                    setScrollState(SCROLL_STATE_DRAGGING);
-                    if (mOrientation == HORIZONTAL) {
-                        mLastMotionX = x;
-                    } else {
-                        mLastMotionY = y;
-                    }
-                    setScrollingCacheEnabled(true);
-                } else {
-                    if (secondaryDiff > mTouchSlop) {
-                        // The finger has moved enough in the vertical
-                        // direction to be counted as a drag...  abort
-                        // any attempt to drag horizontally, to work correctly
-                        // with children that have scrolling containers.
-                        if (DEBUG) Log.v(TAG, "Starting unable to drag!");
-                        mIsUnableToDrag = true;
-                    }
+                    startDrag();
+                    // Follow the rest of the batch right away.
+                    performDrag(ev, pointerIndex, mDragTracker.getSlopSample());
+                } else if (slop == DragTracker.SLOP_REFUSED) {
+                    // The finger has moved enough in the vertical
+                    // direction to be counted as a drag...  abort
+                    // any attempt to drag horizontally, to work correctly
+                    // with children that have scrolling containers.
+                    if (DEBUG) Log.v(TAG, "Starting unable to drag!");
+                    mIsUnableToDrag = true;
                 }
                 break;
             }
@@ -805,27 +1661,20 @@ public class DirectionalViewPager extends ViewPager {
                  * Remember location of down touch.
                  * ACTION_DOWN always refers to pointer index 0.
                  */
-                if (mOrientation == HORIZONTAL) {
-                    mLastMotionX = mInitialMotion = ev.getX();
-                    mLastMotionY = ev.getY();
-                } else {
-                    mLastMotionX = ev.getX();
-                    mLastMotionY = mInitialMotion = ev.getY();
-                }
+                mDragTracker.down(ev.getX(), ev.getY());
                 mActivePointerId = MotionEventCompat.getPointerId(ev, 0);
 
                 if (mScrollState == SCROLL_STATE_SETTLING) {
                     // Let the user 'catch' the pager as it animates.
-                    mIsBeingDragged = true;
+                    startDrag();
                     mIsUnableToDrag = false;
-                    setScrollState(SCROLL_STATE_DRAGGING);
                 } else {
                     completeScroll();
                     mIsBeingDragged = false;
                     mIsUnableToDrag = false;
                 }
 
-                if (DEBUG) Log.v(TAG, "Down at " + mLastMotionX + "," + mLastMotionY
+                if (DEBUG) Log.v(TAG, "Down at " + ev.getX() + "," + ev.getY()
                         + " mIsBeingDragged=" + mIsBeingDragged
                         + "mIsUnableToDrag=" + mIsUnableToDrag);
                 break;
@@ -873,123 +1722,55 @@ public class DirectionalViewPager extends ViewPager {
                 completeScroll();
 
                 // Remember where the motion event started
-                if (mOrientation == HORIZONTAL) {
-                    mLastMotionX = mInitialMotion = ev.getX();
-                } else {
-                    mLastMotionY = mInitialMotion = ev.getY();
-                }
+                mDragTracker.down(ev.getX(), ev.getY());
                 mActivePointerId = MotionEventCompat.getPointerId(ev, 0);
                 break;
             }
-            case MotionEvent.ACTION_MOVE:
-                if (!mIsBeingDragged) {
-                    final int pointerIndex = MotionEventCompat.findPointerIndex(ev, mActivePointerId);
-                    final float x = MotionEventCompat.getX(ev, pointerIndex);
-                    final float y = MotionEventCompat.getY(ev, pointerIndex);
-                    final float xDiff = Math.abs(x - mLastMotionX);
-                    final float yDiff = Math.abs(y - mLastMotionY);
-                    float primaryDiff;
-                    float secondaryDiff;
-
-                    if (mOrientation == HORIZONTAL) {
-                        primaryDiff = xDiff;
-                        secondaryDiff = yDiff;
-                    } else {
-                        primaryDiff = yDiff;
-                        secondaryDiff = xDiff;
-                    }
-
-
-                    if (DEBUG) Log.v(TAG, "Moved x to " + x + "," + y + " diff=" + xDiff + "," + yDiff);
-                    if (primaryDiff > mTouchSlop && primaryDiff > secondaryDiff) {
-                        if (DEBUG) Log.v(TAG, "Starting drag!");
-                        mIsBeingDragged = true;
-                        if (mOrientation == HORIZONTAL) {
-                            mLastMotionX = x;
-                        } else {
-                            mLastMotionY = y;
-                        }
-                        setScrollState(SCROLL_STATE_DRAGGING);
-                        setScrollingCacheEnabled(true);
-                    }
+            case MotionEvent.ACTION_MOVE: {
+                final int pointerIndex = MotionEventCompat.findPointerIndex(ev, mActivePointerId);
+                int firstSample = 0;
+                if (!mIsBeingDragged
+                        && mDragTracker.checkSlop(ev, pointerIndex, false) == DragTracker.SLOP_DRAG) {
+                    if (DEBUG) Log.v(TAG, "Starting drag!");
+                    startDrag();
+                    firstSample = mDragTracker.getSlopSample();
                 }
                 if (mIsBeingDragged) {
                     // Scroll to follow the motion event
-                    final int activePointerIndex = MotionEventCompat.findPointerIndex(
-                            ev, mActivePointerId);
-                    final float x = MotionEventCompat.getX(ev, activePointerIndex);
-                    final float y = MotionEventCompat.getY(ev, activePointerIndex);
-
-                    int size;
-                    float scroll;
-
-                    if (mOrientation == HORIZONTAL) {
-                        size = getWidth();
-                        scroll = getScrollX() + (mLastMotionX - x);
-                        mLastMotionX = x;
-                    } else {
-                        size = getHeight();
-                        scroll = getScrollY() + (mLastMotionY - y);
-                        mLastMotionY = y;
-                    }
-
-                    final float lowerBound = Math.max(0, (mCurItem - 1) * size);
-                    final float upperBound =
-                            Math.min(mCurItem + 1, mAdapter.getCount() - 1) * size;
-                    if (scroll < lowerBound) {
-                        scroll = lowerBound;
-                    } else if (scroll > upperBound) {
-                        scroll = upperBound;
-                    }
-                    if (mOrientation == HORIZONTAL) {
-                        // Don't lose the rounded component
-                        mLastMotionX += scroll - (int) scroll;
-                        scrollTo((int) scroll, getScrollY());
-                    } else {
-                        // Don't lose the rounded component
-                        mLastMotionY += scroll - (int) scroll;
-                        scrollTo(getScrollX(), (int) scroll);
-                    }
-                    if (mOnPageChangeListener != null) {
-                        final int position = (int) scroll / size;
-                        final int positionOffsetPixels = (int) scroll % size;
-                        final float positionOffset = (float) positionOffsetPixels / size;
-                        mOnPageChangeListener.onPageScrolled(position, positionOffset,
-                                positionOffsetPixels);
-                    }
+                    performDrag(ev, pointerIndex, firstSample);
                 }
                 break;
+            }
             case MotionEvent.ACTION_UP:
                 if (mIsBeingDragged) {
                     final VelocityTracker velocityTracker = mVelocityTracker;
                     velocityTracker.computeCurrentVelocity(1000, mMaximumVelocity);
-                    int initialVelocity;
-                    float lastMotion;
-                    int sizeOverThree;
-
-                    if (mOrientation == HORIZONTAL) {
-                        initialVelocity = (int)VelocityTrackerCompat.getXVelocity(
-                                velocityTracker, mActivePointerId);
-                        lastMotion = mLastMotionX;
-                        sizeOverThree = getWidth() / 3;
-                    } else {
-                        initialVelocity = (int)VelocityTrackerCompat.getYVelocity(
-                                velocityTracker, mActivePointerId);
-                        lastMotion = mLastMotionY;
-                        sizeOverThree = getHeight() / 3;
+                    final boolean horizontal = mOrientation == HORIZONTAL;
+                    final int initialVelocity = (int) (horizontal
+                            ? VelocityTrackerCompat.getXVelocity(velocityTracker, mActivePointerId)
+                            : VelocityTrackerCompat.getYVelocity(velocityTracker, mActivePointerId));
+                    final int size = horizontal ? getWidth() : getHeight();
+
+                    // The drag may have crossed whole pages when more than one
+                    // page is retained on either side. Measure it by how far
+                    // the pages moved, which stops at the drag bounds, rather
+                    // than by how far the finger did.
+                    final int dragDistance = (horizontal ? getScrollX() : getScrollY())
+                            - pageScroll(mCurItem, size);
+                    int nextItem = mCurItem;
+                    // The pages move against the finger.
+                    final float velocity = -initialVelocity;
+                    if (size > 0 && dragDistance != 0) {
+                        nextItem += dragDistance / size;
+                        nextItem += mSettleAnimator.getPhysics().getTargetPageOffset(
+                                dragDistance, size, velocity, mMinimumVelocity);
+                        // Never settle beyond the pages the drag could reach.
+                        nextItem = Math.max(mCurItem - Math.max(1, mWindow.getLimitBefore()),
+                                Math.min(mCurItem + Math.max(1, mWindow.getLimitAfter()), nextItem));
                     }
 
                     mPopulatePending = true;
-                    if ((Math.abs(initialVelocity) > mMinimumVelocity)
-                            || Math.abs(mInitialMotion-lastMotion) >= sizeOverThree) {
-                        if (lastMotion > mInitialMotion) {
-                            setCurrentItemInternal(mCurItem-1, true, true);
-                        } else {
-                            setCurrentItemInternal(mCurItem+1, true, true);
-                        }
-                    } else {
-                        setCurrentItemInternal(mCurItem, true, true);
-                    }
+                    setCurrentItemInternal(nextItem, true, true, velocity);
 
                     mActivePointerId = INVALID_POINTER;
                     endDrag();
@@ -1004,22 +1785,14 @@ public class DirectionalViewPager extends ViewPager {
                 break;
             case MotionEventCompat.ACTION_POINTER_DOWN: {
                 final int index = MotionEventCompat.getActionIndex(ev);
-                if (mOrientation == HORIZONTAL) {
-                    mLastMotionX = MotionEventCompat.getX(ev, index);
-                } else {
-                    mLastMotionY = MotionEventCompat.getY(ev, index);
-                }
+                mDragTracker.setLastMotion(MotionEventCompat.getX(ev, index), MotionEventCompat.getY(ev, index));
                 mActivePointerId = MotionEventCompat.getPointerId(ev, index);
                 break;
             }
             case MotionEventCompat.ACTION_POINTER_UP:
                 onSecondaryPointerUp(ev);
                 final int index = MotionEventCompat.findPointerIndex(ev, mActivePointerId);
-                if (mOrientation == HORIZONTAL) {
-                    mLastMotionX = MotionEventCompat.getX(ev, index);
-                } else {
-                    mLastMotionY = MotionEventCompat.getY(ev, index);
-                }
+                mDragTracker.setLastMotion(MotionEventCompat.getX(ev, index), MotionEventCompat.getY(ev, index));
                 break;
         }
         return true;
@@ -1032,11 +1805,8 @@ public class DirectionalViewPager extends ViewPager {
             // This was our active pointer going up. Choose a new
             // active pointer and adjust accordingly.
             final int newPointerIndex = pointerIndex == 0 ? 1 : 0;
-            if (mOrientation == HORIZONTAL) {
-                mLastMotionX = MotionEventCompat.getX(ev, newPointerIndex);
-            } else {
-                mLastMotionY = MotionEventCompat.getY(ev, newPointerIndex);
-            }
+            mDragTracker.setLastMotion(MotionEventCompat.getX(ev, newPointerIndex),
+                    MotionEventCompat.getY(ev, newPointerIndex));
             mActivePointerId = MotionEventCompat.getPointerId(ev, newPointerIndex);
             if (mVelocityTracker != null) {
                 mVelocityTracker.clear();
@@ -1044,35 +1814,136 @@ public class DirectionalViewPager extends ViewPager {
         }
     }
 
+    private void startDrag() {
+        mIsBeingDragged = true;
+        setScrollState(SCROLL_STATE_DRAGGING);
+        setScrollingCacheEnabled(true);
+        mDragTracker.startDrag((mOrientation == HORIZONTAL) ? getScrollX() : getScrollY());
+    }
+
+    /**
+     * Scroll to follow every sample of a move from {@code firstSample} on,
+     * leading the finger by its predicted movement if
+     * {@link #setTouchPredictionEnabled(boolean)} is set.
+     */
+    private void performDrag(MotionEvent ev, int pointerIndex, int firstSample) {
+        final boolean horizontal = mOrientation == HORIZONTAL;
+        final int size = horizontal ? getWidth() : getHeight();
+
+        // Allow dragging across the retained pages, but always at
+        // least one page in either direction.
+        final float lowerBound = pageScroll((int) Math.max(0L,
+                (long) mCurItem - Math.max(1, mWindow.getLimitBefore())), size);
+        final float upperBound = pageScroll((int) Math.min(
+                (long) mCurItem + Math.max(1, mWindow.getLimitAfter()),
+                mAdapter.getCount() - 1), size);
+
+        float lead = 0;
+        if (mTouchPredictionEnabled && mVelocityTracker != null) {
+            mVelocityTracker.computeCurrentVelocity(1000, mMaximumVelocity);
+            final float velocity = horizontal
+                    ? VelocityTrackerCompat.getXVelocity(mVelocityTracker, mActivePointerId)
+                    : VelocityTrackerCompat.getYVelocity(mVelocityTracker, mActivePointerId);
+            lead = -velocity * getFrameIntervalMillis() / 1000;
+        }
+        final int scroll = mDragTracker.drag(ev, pointerIndex, firstSample,
+                horizontal ? getScrollX() : getScrollY(), lowerBound, upperBound, lead);
+        if (horizontal) {
+            scrollTo(scroll, getScrollY());
+        } else {
+            scrollTo(getScrollX(), scroll);
+        }
+    }
+
+    private float getFrameIntervalMillis() {
+        if (mFrameIntervalMillis == 0) {
+            mFrameIntervalMillis = PagerCompat.getFrameIntervalMillis(getContext());
+        }
+        return mFrameIntervalMillis;
+    }
+
+    /**
+     * Returns whether drags lead the finger by its predicted movement.
+     *
+     * @see #setTouchPredictionEnabled(boolean)
+     */
+    public boolean isTouchPredictionEnabled() {
+        return mTouchPredictionEnabled;
+    }
+
+    /**
+     * Set whether a drag moves the pages to where the finger is predicted to
+     * be when the frame is shown, one display refresh after the touch event,
+     * rather than where it was. This hides a frame of input latency at the
+     * cost of small overshoots when the finger changes speed. Where a drag
+     * is released and how fast is unaffected.
+     *
+     * @param enabled Whether to extrapolate the finger's position.
+     */
+    public void setTouchPredictionEnabled(boolean enabled) {
+        mTouchPredictionEnabled = enabled;
+    }
+
     private void endDrag() {
         mIsBeingDragged = false;
         mIsUnableToDrag = false;
+        if (!mScrolling) {
+            // No settle follows to release the layers.
+            setScrollingCacheEnabled(false);
+        }
 
+        // Keep the tracker for the next gesture rather than obtaining a new
+        // one each time; it is recycled when the pager is detached.
         if (mVelocityTracker != null) {
-            mVelocityTracker.recycle();
-            mVelocityTracker = null;
+            mVelocityTracker.clear();
         }
     }
 
     private void setScrollingCacheEnabled(boolean enabled) {
         if (mScrollingCacheEnabled != enabled) {
             mScrollingCacheEnabled = enabled;
-            if (USE_CACHE) {
-                final int size = getChildCount();
-                for (int i = 0; i < size; ++i) {
-                    final View child = getChildAt(i);
-                    if (child.getVisibility() != GONE) {
-                        child.setDrawingCacheEnabled(enabled);
-                    }
-                }
+            if (usesScrollingLayers()) {
+                updateScrollingLayers();
             }
         }
     }
 
-    private class DataSetObserver implements VerticalViewPagerCompat.DataSetObserver {
-        @Override
-        public void onDataSetChanged() {
-            dataSetChanged();
+    /**
+     * Returns whether pages are drawn through hardware layers while
+     * scrolling, as requested or because they are being transformed.
+     */
+    private boolean usesScrollingLayers() {
+        return mScrollingLayersEnabled || mScrollDispatcher.getPageTransformer() != null;
+    }
+
+    private void updateScrollingLayers() {
+        if (!PagerCompat.isLayerTypeSupported()) {
+            return;
+        }
+        final int size = getChildCount();
+        for (int i = 0; i < size; ++i) {
+            updateScrollingLayer(getChildAt(i));
+        }
+    }
+
+    private void updateScrollingLayer(View child) {
+        final ViewGroup.LayoutParams params = child.getLayoutParams();
+        if (!(params instanceof LayoutParams)) {
+            return;
+        }
+        final LayoutParams lp = (LayoutParams) params;
+        boolean useLayer = false;
+        if (usesScrollingLayers() && mScrollingCacheEnabled && child.getVisibility() != GONE) {
+            // Without a transformer only the pages which can be on screen
+            // are worth the memory, but a transformer may show any of them.
+            useLayer = lp.info == null || mScrollDispatcher.getPageTransformer() != null
+                    || Math.abs(lp.info.position - mCurItem) <= 1;
+        }
+        // Only ever undo layers we set ourselves.
+        if (useLayer != lp.scrollingLayer) {
+            lp.scrollingLayer = useLayer;
+            PagerCompat.setLayerType(child,
+                    useLayer ? PagerCompat.LAYER_TYPE_HARDWARE : PagerCompat.LAYER_TYPE_NONE);
         }
     }
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import android.support.v4.view.MotionEventCompat;
+import android.view.MotionEvent;
+
+/**
+ * Follows the finger through a drag of a {@link DirectionalViewPager}. Every
+ * sample batched into a move event is used, oldest first, so that a drag
+ * starts at the sample which crossed the touch slop and the pages follow
+ * the finger through all of its recent positions.
+ */
+final class DragTracker {
+    static final int SLOP_UNDECIDED = 0;
+    static final int SLOP_DRAG = 1;
+    static final int SLOP_REFUSED = 2;
+
+    private int mTouchSlop;
+    private boolean mHorizontal = true;
+    private float mLastMotionX;
+    private float mLastMotionY;
+    private int mSlopSample;
+    private float mDragScroll;
+    private int mDragScrollPixels;
+
+    void setTouchSlop(int touchSlop) {
+        mTouchSlop = touchSlop;
+    }
+
+    /**
+     * Set the axis of the pager and forget the current gesture.
+     */
+    void setHorizontal(boolean horizontal) {
+        mHorizontal = horizontal;
+        mLastMotionX = 0;
+        mLastMotionY = 0;
+    }
+
+    /**
+     * Start a gesture at a touch down.
+     */
+    void down(float x, float y) {
+        mLastMotionX = x;
+        mLastMotionY = y;
+    }
+
+    /**
+     * Continue the gesture from another pointer's position.
+     */
+    void setLastMotion(float x, float y) {
+        if (mHorizontal) {
+            mLastMotionX = x;
+        } else {
+            mLastMotionY = y;
+        }
+    }
+
+    /**
+     * Check the samples of a move, oldest first, against the touch slop.
+     * When a drag starts, the last motion is set to the sample which crossed
+     * the slop, and {@link #getSlopSample()} returns the one after it so that
+     * the rest of the batch can be dragged straight away.
+     *
+     * @param canRefuse Whether movement across the pager's axis refuses the drag.
+     * @return {@link #SLOP_DRAG}, {@link #SLOP_REFUSED} or {@link #SLOP_UNDECIDED}.
+     */
+    int checkSlop(MotionEvent ev, int pointerIndex, boolean canRefuse) {
+        final int history = ev.getHistorySize();
+        for (int h = firstSample(pointerIndex, history); h <= history; h++) {
+            final float x = h < history ? ev.getHistoricalX(h) : MotionEventCompat.getX(ev, pointerIndex);
+            final float y = h < history ? ev.getHistoricalY(h) : MotionEventCompat.getY(ev, pointerIndex);
+            final float xDiff = Math.abs(x - mLastMotionX);
+            final float yDiff = Math.abs(y - mLastMotionY);
+            final float primaryDiff = mHorizontal ? xDiff : yDiff;
+            final float secondaryDiff = mHorizontal ? yDiff : xDiff;
+
+            if (primaryDiff > mTouchSlop && primaryDiff > secondaryDiff) {
+                setLastMotion(x, y);
+                mSlopSample = h + 1;
+                return SLOP_DRAG;
+            }
+            if (canRefuse && secondaryDiff > mTouchSlop) {
+                return SLOP_REFUSED;
+            }
+        }
+        return SLOP_UNDECIDED;
+    }
+
+    /**
+     * Returns the first sample of the last checked move which belongs to the drag.
+     */
+    int getSlopSample() {
+        return mSlopSample;
+    }
+
+    /**
+     * Start dragging from a scroll position.
+     */
+    void startDrag(int scroll) {
+        mDragScroll = scroll;
+        mDragScrollPixels = scroll;
+    }
+
+    /**
+     * Follow the samples of a move from {@code firstSample} on.
+     *
+     * @param scroll The pager's current scroll position. Changes made to it
+     *            since the last call, for example by a data set change, are
+     *            carried over.
+     * @param lead Distance to scroll ahead of the finger.
+     * @return The scroll position to show.
+     */
+    int drag(MotionEvent ev, int pointerIndex, int firstSample, int scroll,
+            float lowerBound, float upperBound, float lead) {
+        mDragScroll += scroll - mDragScrollPixels;
+        final int history = ev.getHistorySize();
+        for (int h = Math.max(firstSample, firstSample(pointerIndex, history)); h <= history; h++) {
+            if (mHorizontal) {
+                final float x = h < history ? ev.getHistoricalX(h) : MotionEventCompat.getX(ev, pointerIndex);
+                mDragScroll += mLastMotionX - x;
+                mLastMotionX = x;
+            } else {
+                final float y = h < history ? ev.getHistoricalY(h) : MotionEventCompat.getY(ev, pointerIndex);
+                mDragScroll += mLastMotionY - y;
+                mLastMotionY = y;
+            }
+            // Motion beyond the bounds is dropped, so turning back moves the pages at once.
+            mDragScroll = Math.max(lowerBound, Math.min(upperBound, mDragScroll));
+        }
+        mDragScrollPixels = (int) Math.max(lowerBound, Math.min(upperBound, mDragScroll + lead));
+        return mDragScrollPixels;
+    }
+
+    /**
+     * Historical samples are only available for the first pointer; for any
+     * other, only the current sample is used.
+     */
+    private static int firstSample(int pointerIndex, int history) {
+        return pointerIndex == 0 ? 0 : history;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+/**
+ * {@link PagerPhysics} which always takes the same time, easing in and out
+ * like a {@code Scroller} without an interpolator. This is the default.
+ */
+public class FixedDurationPhysics extends PagerPhysics {
+    public static final int DEFAULT_DURATION = 250;
+
+    private static final float VISCOUS_FLUID_SCALE = 8;
+    private static final float VISCOUS_FLUID_NORMALIZE = 1 / viscousFluid(1);
+
+    private final int mDuration;
+    private int mDistance;
+
+    public FixedDurationPhysics() {
+        this(DEFAULT_DURATION);
+    }
+
+    /**
+     * @param duration Duration of every animation in milliseconds.
+     */
+    public FixedDurationPhysics(int duration) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("Duration must not be negative.");
+        }
+        mDuration = duration;
+    }
+
+    public int getDuration() {
+        return mDuration;
+    }
+
+    @Override
+    protected void onStart(int distance, float velocity) {
+        mDistance = distance;
+    }
+
+    @Override
+    protected float getOffset(long elapsedMillis) {
+        return mDistance * viscousFluid((float) elapsedMillis / mDuration) * VISCOUS_FLUID_NORMALIZE;
+    }
+
+    @Override
+    protected boolean isAtRest(long elapsedMillis) {
+        return elapsedMillis >= mDuration;
+    }
+
+    private static float viscousFluid(float x) {
+        x *= VISCOUS_FLUID_SCALE;
+        if (x < 1) {
+            x -= 1 - (float) Math.exp(-x);
+        } else {
+            final float start = 0.36787944117f; // 1/e == exp(-1)
+            x = 1 - (float) Math.exp(1 - x);
+            x = start + x * (1 - start);
+        }
+        return x;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import android.support.v4.view.MotionEventCompat;
+import android.view.MotionEvent;
+
+/**
+ * Records the touch events reaching a {@link DirectionalViewPager} in a
+ * compact binary form, to be played back by a {@link GestureReplayer}.
+ * Recording copies into a growing buffer and only allocates when it grows.
+ *
+ * <pre>
+ * GestureRecorder recorder = new GestureRecorder();
+ * pager.setGestureRecorder(recorder);
+ * // ...
+ * recorder.writeTo(out);
+ * </pre>
+ *
+ * <p>The batched samples of single pointer moves are kept. Events with more
+ * than one pointer keep every pointer's ID and position, but only their most
+ * recent sample.</p>
+ */
+public final class GestureRecorder {
+    /** "DVPG", at the start of every recording. */
+    static final int MAGIC = 0x44565047;
+    static final int VERSION = 1;
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private byte[] mBuffer = new byte[INITIAL_CAPACITY];
+    private int mSize;
+    private int mEventCount;
+    private long mLastTime = -1;
+
+    /**
+     * Append an event. Times are stored relative to the previous event.
+     */
+    public void record(MotionEvent ev) {
+        final int pointerCount = PagerCompat.getPointerCount(ev);
+        final int history = pointerCount == 1 ? ev.getHistorySize() : 0;
+
+        writeShort(ev.getAction());
+        writeByte(pointerCount);
+        for (int i = 0; i < pointerCount; i++) {
+            writeByte(MotionEventCompat.getPointerId(ev, i));
+        }
+        writeVarint(history + 1);
+        for (int h = 0; h < history; h++) {
+            writeTime(ev.getHistoricalEventTime(h));
+            writeFloat(ev.getHistoricalX(h));
+            writeFloat(ev.getHistoricalY(h));
+        }
+        writeTime(ev.getEventTime());
+        for (int i = 0; i < pointerCount; i++) {
+            writeFloat(MotionEventCompat.getX(ev, i));
+            writeFloat(MotionEventCompat.getY(ev, i));
+        }
+        mEventCount++;
+    }
+
+    public int getEventCount() {
+        return mEventCount;
+    }
+
+    /**
+     * Returns the size of the recording written by {@link #writeTo}.
+     */
+    public int getByteCount() {
+        return 12 + mSize;
+    }
+
+    /**
+     * Forget every event recorded so far.
+     */
+    public void clear() {
+        mSize = 0;
+        mEventCount = 0;
+        mLastTime = -1;
+    }
+
+    /**
+     * Write the recording. The stream is left open.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        final byte[] header = new byte[12];
+        putInt(header, 0, MAGIC);
+        putInt(header, 4, VERSION);
+        putInt(header, 8, mEventCount);
+        out.write(header);
+        out.write(mBuffer, 0, mSize);
+    }
+
+    private void writeTime(long time) {
+        // The first event starts the recording.
+        final long delta = mLastTime < 0 ? 0 : time - mLastTime;
+        mLastTime = time;
+        writeVarint((int) Math.max(0, Math.min(Integer.MAX_VALUE, delta)));
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    private void writeShort(int value) {
+        writeByte(value >> 8);
+        writeByte(value);
+    }
+
+    private void writeFloat(float value) {
+        final int bits = Float.floatToIntBits(value);
+        writeShort(bits >> 16);
+        writeShort(bits);
+    }
+
+    private void writeByte(int value) {
+        if (mSize == mBuffer.length) {
+            final byte[] buffer = new byte[mBuffer.length * 2];
+            System.arraycopy(mBuffer, 0, buffer, 0, mSize);
+            mBuffer = buffer;
+        }
+        mBuffer[mSize++] = (byte) value;
+    }
+
+    private static void putInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >> 24);
+        buffer[offset + 1] = (byte) (value >> 16);
+        buffer[offset + 2] = (byte) (value >> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+}
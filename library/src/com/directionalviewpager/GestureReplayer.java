@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.support.v4.view.MotionEventCompat;
+import android.util.Log;
+import android.view.MotionEvent;
+
+/**
+ * Plays a recording made by a {@link GestureRecorder} back into a
+ * {@link DirectionalViewPager} and reports the work it caused. Replays need
+ * the framework, such as on a device or in a Robolectric test, and keep the
+ * recorded time between events but do not wait for it.
+ *
+ * <pre>
+ * GestureReplayer replayer = GestureReplayer.read(in);
+ * GestureReplayer.Report report = replayer.replay(pager);
+ * assertTrue(report.getPopulateCount() &lt;= 12);
+ * </pre>
+ *
+ * <p>Settle animations continue from frame callbacks after the last event,
+ * so a test has to run the main looper to see them to their end.</p>
+ */
+public final class GestureReplayer {
+    private static final String TAG = "GestureReplayer";
+
+    /** Creates events with several pointers or any pointer IDs, from Android 2.3 on. */
+    private static final Method OBTAIN_POINTERS;
+    private static final Class<?> POINTER_COORDS;
+    private static final Field POINTER_X;
+    private static final Field POINTER_Y;
+    private static final Field POINTER_PRESSURE;
+
+    static {
+        Method obtain = null;
+        Class<?> coords = null;
+        Field x = null;
+        Field y = null;
+        Field pressure = null;
+        try {
+            coords = Class.forName("android.view.MotionEvent$PointerCoords");
+            obtain = MotionEvent.class.getMethod("obtain", long.class, long.class, int.class,
+                    int.class, int[].class, Array.newInstance(coords, 0).getClass(), int.class,
+                    float.class, float.class, int.class, int.class, int.class, int.class);
+            x = coords.getField("x");
+            y = coords.getField("y");
+            pressure = coords.getField("pressure");
+        } catch (Exception e) {
+            Log.w(TAG, "Events with several pointers or pointer IDs other than 0 cannot be replayed.");
+            obtain = null;
+        }
+        OBTAIN_POINTERS = obtain;
+        POINTER_COORDS = coords;
+        POINTER_X = x;
+        POINTER_Y = y;
+        POINTER_PRESSURE = pressure;
+    }
+
+    /**
+     * Work done by the pager during a replay.
+     */
+    public static final class Report {
+        final PagerMetrics.Snapshot mMetrics;
+        final PagerMetrics.Histogram mDispatch;
+        final int mEventCount;
+        final int mSkippedEventCount;
+
+        Report(PagerMetrics.Snapshot metrics, PagerMetrics.Histogram dispatch,
+                int eventCount, int skippedEventCount) {
+            mMetrics = metrics;
+            mDispatch = dispatch;
+            mEventCount = eventCount;
+            mSkippedEventCount = skippedEventCount;
+        }
+
+        /** Returns the number of events dispatched to the pager. */
+        public int getEventCount() {
+            return mEventCount;
+        }
+
+        /**
+         * Returns the number of events with several pointers, or with a
+         * pointer ID other than 0, which were left out because the platform
+         * cannot create them.
+         */
+        public int getSkippedEventCount() {
+            return mSkippedEventCount;
+        }
+
+        public long getPopulateCount() {
+            return mMetrics.getHistogram(PagerMetricsListener.EVENT_POPULATE).getCount();
+        }
+
+        public long getInstantiateItemCount() {
+            return mMetrics.getHistogram(PagerMetricsListener.EVENT_INSTANTIATE_ITEM).getCount();
+        }
+
+        public long getDestroyItemCount() {
+            return mMetrics.getHistogram(PagerMetricsListener.EVENT_DESTROY_ITEM).getCount();
+        }
+
+        /**
+         * Returns the thread CPU time the pager spent on each event, including
+         * any layout and page changes it did right away.
+         */
+        public PagerMetrics.Histogram getDispatchHistogram() {
+            return mDispatch;
+        }
+
+        /**
+         * Returns everything the pager reported to its metrics listener
+         * during the replay.
+         */
+        public PagerMetrics.Snapshot getMetrics() {
+            return mMetrics;
+        }
+
+        @Override
+        public String toString() {
+            return "events=" + mEventCount + " skipped=" + mSkippedEventCount
+                    + " populate=" + getPopulateCount()
+                    + " instantiateItem=" + getInstantiateItemCount()
+                    + " destroyItem=" + getDestroyItemCount()
+                    + " dispatch mean=" + mDispatch.getMeanNanos() / 1000
+                    + "us p90=" + mDispatch.getPercentileNanos(90) / 1000
+                    + "us max=" + mDispatch.getMaxNanos() / 1000 + "us\n"
+                    + mMetrics;
+        }
+    }
+
+    private final byte[] mEvents;
+    private final int mEventCount;
+
+    private GestureReplayer(byte[] events, int eventCount) {
+        mEvents = events;
+        mEventCount = eventCount;
+    }
+
+    /**
+     * Read a recording written by {@link GestureRecorder#writeTo}. The stream
+     * is read to its end and left open.
+     */
+    public static GestureReplayer read(InputStream in) throws IOException {
+        final DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != GestureRecorder.MAGIC) {
+            throw new IOException("Not a gesture recording.");
+        }
+        final int version = data.readInt();
+        if (version != GestureRecorder.VERSION) {
+            throw new IOException("Unsupported gesture recording version " + version + ".");
+        }
+        final int eventCount = data.readInt();
+        final ByteArrayOutputStream events = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            events.write(buffer, 0, read);
+        }
+        return new GestureReplayer(events.toByteArray(), eventCount);
+    }
+
+    public int getEventCount() {
+        return mEventCount;
+    }
+
+    /**
+     * Dispatch every recorded event to {@code pager}, as if it came from
+     * its parent. The pager's metrics listener is replaced for the replay
+     * and removed afterwards.
+     */
+    public Report replay(DirectionalViewPager pager) {
+        final PagerMetrics metrics = new PagerMetrics();
+        final PagerMetrics.Histogram dispatch = new PagerMetrics.Histogram();
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(mEvents));
+        int replayed = 0;
+        int skipped = 0;
+        long time = SystemClock.uptimeMillis();
+        long downTime = time;
+
+        pager.setMetricsListener(metrics);
+        try {
+            for (int e = 0; e < mEventCount; e++) {
+                final int action = in.readUnsignedShort();
+                final int pointerCount = in.readUnsignedByte();
+                final int[] ids = new int[pointerCount];
+                for (int i = 0; i < pointerCount; i++) {
+                    ids[i] = in.readUnsignedByte();
+                }
+                final int samples = readVarint(in);
+                MotionEvent ev = null;
+                if (pointerCount == 1) {
+                    // The simple obtain() always creates pointer 0, so a
+                    // second finger left alone needs the pointer array one.
+                    boolean skip = ids[0] != 0 && OBTAIN_POINTERS == null;
+                    for (int s = 0; s < samples; s++) {
+                        time += readVarint(in);
+                        if ((action & MotionEventCompat.ACTION_MASK) == MotionEvent.ACTION_DOWN) {
+                            downTime = time;
+                        }
+                        final float x = in.readFloat();
+                        final float y = in.readFloat();
+                        if (skip) {
+                            continue;
+                        }
+                        if (ev == null) {
+                            ev = ids[0] == 0
+                                    ? MotionEvent.obtain(downTime, time, action, x, y, 0)
+                                    : obtain(downTime, time, action, ids, new float[] { x, y });
+                            skip = ev == null;
+                        } else {
+                            ev.addBatch(time, x, y, 1, 1, 0);
+                        }
+                    }
+                } else {
+                    time += readVarint(in);
+                    final float[] coords = new float[pointerCount * 2];
+                    for (int i = 0; i < coords.length; i++) {
+                        coords[i] = in.readFloat();
+                    }
+                    ev = obtain(downTime, time, action, ids, coords);
+                }
+
+                if (ev == null) {
+                    skipped++;
+                    continue;
+                }
+                final long start = cpuTimeNanos();
+                pager.dispatchTouchEvent(ev);
+                dispatch.record(cpuTimeNanos() - start);
+                ev.recycle();
+                replayed++;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Truncated gesture recording.", e);
+        } finally {
+            pager.setMetricsListener(null);
+        }
+        return new Report(metrics.snapshot(), dispatch, replayed, skipped);
+    }
+
+    private static MotionEvent obtain(long downTime, long time, int action, int[] ids, float[] coords) {
+        if (OBTAIN_POINTERS == null) {
+            return null;
+        }
+        try {
+            final Object pointers = Array.newInstance(POINTER_COORDS, ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                final Object pointer = POINTER_COORDS.getConstructor().newInstance();
+                POINTER_X.setFloat(pointer, coords[i * 2]);
+                POINTER_Y.setFloat(pointer, coords[i * 2 + 1]);
+                POINTER_PRESSURE.setFloat(pointer, 1);
+                Array.set(pointers, i, pointer);
+            }
+            return (MotionEvent) OBTAIN_POINTERS.invoke(null, downTime, time, action, ids.length,
+                    ids, pointers, 0, 1f, 1f, 0, 0, 0, 0);
+        } catch (Exception e) {
+            Log.w(TAG, "Unable to create an event with pointers " + Arrays.toString(ids) + ".", e);
+            return null;
+        }
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long cpuTimeNanos() {
+        final long cpuTime = Debug.threadCpuTimeNanos();
+        return cpuTime >= 0 ? cpuTime : System.nanoTime();
+    }
+}
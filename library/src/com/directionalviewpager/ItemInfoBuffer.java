@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+/**
+ * List of the items retained by a pager, sorted by position. Items live in a
+ * circular buffer so that sliding the window by one page only touches its
+ * ends, and removed items are pooled so that they can be reused without
+ * allocating.
+ */
+final class ItemInfoBuffer {
+    /** Must be a power of two. */
+    private static final int INITIAL_CAPACITY = 4;
+
+    private ItemInfo[] mItems = new ItemInfo[INITIAL_CAPACITY];
+    private int mHead;
+    private int mSize;
+
+    private ItemInfo[] mPool = new ItemInfo[INITIAL_CAPACITY];
+    private int mPoolSize;
+
+    int size() {
+        return mSize;
+    }
+
+    boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    ItemInfo get(int index) {
+        return mItems[(mHead + index) & (mItems.length - 1)];
+    }
+
+    private void set(int index, ItemInfo ii) {
+        mItems[(mHead + index) & (mItems.length - 1)] = ii;
+    }
+
+    void add(ItemInfo ii) {
+        add(mSize, ii);
+    }
+
+    /**
+     * Insert an item, shifting whichever side of the buffer is shorter.
+     */
+    void add(int index, ItemInfo ii) {
+        ensureCapacity(mSize + 1);
+        final ItemInfo[] items = mItems;
+        final int mask = items.length - 1;
+        if (index < mSize / 2) {
+            mHead = (mHead - 1) & mask;
+            for (int i = 0; i < index; i++) {
+                items[(mHead + i) & mask] = items[(mHead + i + 1) & mask];
+            }
+        } else {
+            for (int i = mSize; i > index; i--) {
+                items[(mHead + i) & mask] = items[(mHead + i - 1) & mask];
+            }
+        }
+        items[(mHead + index) & mask] = ii;
+        mSize++;
+    }
+
+    /**
+     * Remove an item, shifting whichever side of the buffer is shorter.
+     */
+    ItemInfo remove(int index) {
+        final ItemInfo[] items = mItems;
+        final int mask = items.length - 1;
+        final ItemInfo ii = items[(mHead + index) & mask];
+        if (index < mSize / 2) {
+            for (int i = index; i > 0; i--) {
+                items[(mHead + i) & mask] = items[(mHead + i - 1) & mask];
+            }
+            items[mHead] = null;
+            mHead = (mHead + 1) & mask;
+        } else {
+            for (int i = index; i < mSize - 1; i++) {
+                items[(mHead + i) & mask] = items[(mHead + i + 1) & mask];
+            }
+            items[(mHead + mSize - 1) & mask] = null;
+        }
+        mSize--;
+        return ii;
+    }
+
+    /**
+     * Restore ordering by position after positions have been reassigned.
+     * Positions usually shift together, so an insertion sort is close to
+     * linear here.
+     */
+    void sort() {
+        for (int i = 1; i < mSize; i++) {
+            final ItemInfo ii = get(i);
+            int j = i - 1;
+            while (j >= 0 && get(j).position > ii.position) {
+                set(j + 1, get(j));
+                j--;
+            }
+            set(j + 1, ii);
+        }
+    }
+
+    /**
+     * Returns the index of the item at an adapter position, or -1 if no such
+     * item is retained. This is constant time while the retained positions
+     * are contiguous, which is the case outside of long jumps.
+     */
+    int indexOfPosition(int position) {
+        if (mSize == 0) {
+            return -1;
+        }
+        final int first = get(0).position;
+        final int last = get(mSize - 1).position;
+        if (position < first || position > last) {
+            return -1;
+        }
+        if (last - first == mSize - 1) {
+            return position - first;
+        }
+
+        int low = 0;
+        int high = mSize - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int midPosition = get(mid).position;
+            if (midPosition < position) {
+                low = mid + 1;
+            } else if (midPosition > position) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns an unused item from the pool, allocating one only if the pool
+     * is empty. All fields must be assigned by the caller.
+     */
+    ItemInfo obtain() {
+        if (mPoolSize == 0) {
+            return new ItemInfo();
+        }
+        final ItemInfo ii = mPool[--mPoolSize];
+        mPool[mPoolSize] = null;
+        return ii;
+    }
+
+    /**
+     * Return a removed item to the pool. Its position is left intact so that
+     * callers may still read it until the item is obtained again.
+     */
+    void recycle(ItemInfo ii) {
+        ii.object = null;
+        ii.scrolling = false;
+        ii.placeholder = false;
+        if (mPoolSize == mPool.length) {
+            final ItemInfo[] pool = new ItemInfo[mPool.length * 2];
+            System.arraycopy(mPool, 0, pool, 0, mPoolSize);
+            mPool = pool;
+        }
+        mPool[mPoolSize++] = ii;
+    }
+
+    /**
+     * Make room for {@code count} items and fill the pool up to it, so that
+     * retaining that many items never allocates.
+     */
+    void reserve(int count) {
+        ensureCapacity(count);
+        while (mSize + mPoolSize < count) {
+            recycle(new ItemInfo());
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        final ItemInfo[] items = mItems;
+        if (capacity <= items.length) {
+            return;
+        }
+        int length = items.length;
+        while (length < capacity) {
+            length <<= 1;
+        }
+        final ItemInfo[] grown = new ItemInfo[length];
+        final int mask = items.length - 1;
+        for (int i = 0; i < mSize; i++) {
+            grown[i] = items[(mHead + i) & mask];
+        }
+        mItems = grown;
+        mHead = 0;
+    }
+}
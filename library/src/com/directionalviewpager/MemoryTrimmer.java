@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import android.content.Context;
+import android.os.Build;
+import android.util.Log;
+import android.view.View;
+
+/**
+ * Shrinks the window of retained pages down to the current page when the
+ * system reports memory pressure, and grows it back one page at a time once
+ * no pressure was reported for a while.
+ *
+ * <p>On Android 4.0 and newer it listens to the application's
+ * {@code ComponentCallbacks2} while the pager is attached. Every method must
+ * be called from the UI thread.</p>
+ */
+final class MemoryTrimmer implements Runnable, InvocationHandler {
+    interface Host {
+        /** Retain the given number of pages around the current one. */
+        void setWindowLimits(int before, int after);
+
+        /** Drop every page and prefetched data kept outside the window. */
+        void releaseRetainedPages();
+
+        /** Returns whether the pager is at rest. */
+        boolean isIdle();
+    }
+
+    private static final String TAG = "MemoryTrimmer";
+
+    /** {@code ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE}, the mildest level. */
+    static final int TRIM_MEMORY_RUNNING_MODERATE = 5;
+    /** {@code ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN}, sent when the application goes to the background. */
+    static final int TRIM_MEMORY_UI_HIDDEN = 20;
+    /** {@code ComponentCallbacks2.TRIM_MEMORY_COMPLETE}, the most severe level. */
+    static final int TRIM_MEMORY_COMPLETE = 80;
+
+    /** Time without pressure before the window starts to grow back. */
+    private static final long GROW_DELAY_MILLIS = 10000;
+    /** Time between pages added back to the window. */
+    private static final long GROW_INTERVAL_MILLIS = 1000;
+
+    private static final int ICE_CREAM_SANDWICH = 14;
+
+    private static final Class<?> COMPONENT_CALLBACKS;
+    private static final Method REGISTER_CALLBACKS;
+    private static final Method UNREGISTER_CALLBACKS;
+
+    static {
+        Class<?> callbacks = null;
+        Method register = null;
+        Method unregister = null;
+        if (Build.VERSION.SDK_INT >= ICE_CREAM_SANDWICH) {
+            try {
+                callbacks = Class.forName("android.content.ComponentCallbacks2");
+                final Class<?> base = Class.forName("android.content.ComponentCallbacks");
+                register = Context.class.getMethod("registerComponentCallbacks", base);
+                unregister = Context.class.getMethod("unregisterComponentCallbacks", base);
+            } catch (Exception e) {
+                Log.w(TAG, "Unable to find component callbacks.", e);
+                register = null;
+                unregister = null;
+            }
+        }
+        COMPONENT_CALLBACKS = callbacks;
+        REGISTER_CALLBACKS = register;
+        UNREGISTER_CALLBACKS = unregister;
+    }
+
+    private final View mView;
+    private final Host mHost;
+    private int mLimitBefore;
+    private int mLimitAfter;
+    private int mWindowBefore;
+    private int mWindowAfter;
+    private int mTrimLevel;
+    private int mTrimCount;
+    private boolean mTrimmedHidden;
+    private Object mCallbacks;
+    private Context mRegisteredContext;
+
+    /**
+     * @param before Pages retained before the current one without pressure.
+     * @param after Pages retained after the current one without pressure.
+     */
+    MemoryTrimmer(View view, Host host, int before, int after) {
+        mView = view;
+        mHost = host;
+        mLimitBefore = mWindowBefore = before;
+        mLimitAfter = mWindowAfter = after;
+    }
+
+    int getLimitBefore() {
+        return mLimitBefore;
+    }
+
+    int getLimitAfter() {
+        return mLimitAfter;
+    }
+
+    /**
+     * Set the window to use without pressure. A trimmed window stays as small
+     * as it is until it grows back.
+     */
+    void setLimits(int before, int after) {
+        mLimitBefore = before;
+        mLimitAfter = after;
+        if (isTrimmed()) {
+            setWindow(Math.min(before, mWindowBefore), Math.min(after, mWindowAfter));
+        } else {
+            setWindow(before, after);
+        }
+    }
+
+    /**
+     * Returns whether the window is smaller than its limits because of
+     * memory pressure.
+     */
+    boolean isTrimmed() {
+        return mTrimLevel != 0;
+    }
+
+    int getTrimLevel() {
+        return mTrimLevel;
+    }
+
+    int getTrimCount() {
+        return mTrimCount;
+    }
+
+    /**
+     * React to a {@code ComponentCallbacks2} trim level. Levels below
+     * {@link #TRIM_MEMORY_RUNNING_MODERATE} are ignored, and so is
+     * {@link #TRIM_MEMORY_UI_HIDDEN} while the pager is still shown.
+     */
+    void trim(int level) {
+        if (level < TRIM_MEMORY_RUNNING_MODERATE) {
+            return;
+        }
+        if (level == TRIM_MEMORY_UI_HIDDEN && mView.getWindowVisibility() == View.VISIBLE) {
+            return;
+        }
+        // Trimmed in the background, the window is restored once shown again.
+        mTrimmedHidden = level >= TRIM_MEMORY_UI_HIDDEN;
+        mTrimLevel = Math.max(mTrimLevel, level);
+        mTrimCount++;
+        // Shrink first; the pages leaving the window go to the caches released next.
+        setWindow(0, 0);
+        mHost.releaseRetainedPages();
+        schedule(GROW_DELAY_MILLIS);
+    }
+
+    /**
+     * Listen to the application's trim levels and resume growing the window
+     * if it was trimmed.
+     */
+    void attach(Context context) {
+        if (REGISTER_CALLBACKS != null && mRegisteredContext == null) {
+            if (mCallbacks == null) {
+                mCallbacks = Proxy.newProxyInstance(COMPONENT_CALLBACKS.getClassLoader(),
+                        new Class<?>[] { COMPONENT_CALLBACKS }, this);
+            }
+            final Context application = context.getApplicationContext();
+            try {
+                REGISTER_CALLBACKS.invoke(application, mCallbacks);
+                mRegisteredContext = application;
+            } catch (Exception e) {
+                Log.w(TAG, "Unable to register component callbacks.", e);
+            }
+        }
+        if (isTrimmed()) {
+            schedule(GROW_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Restore the whole window straight away if it was trimmed while the
+     * application was in the background, as the user is about to swipe
+     * through it again. Pressure while running still lets it grow back
+     * slowly.
+     */
+    void onWindowVisible() {
+        if (isTrimmed() && mTrimmedHidden) {
+            mView.removeCallbacks(this);
+            mTrimLevel = 0;
+            mTrimmedHidden = false;
+            setWindow(mLimitBefore, mLimitAfter);
+        }
+    }
+
+    void detach() {
+        if (mRegisteredContext != null) {
+            try {
+                UNREGISTER_CALLBACKS.invoke(mRegisteredContext, mCallbacks);
+            } catch (Exception e) {
+                Log.w(TAG, "Unable to unregister component callbacks.", e);
+            }
+            mRegisteredContext = null;
+        }
+        mView.removeCallbacks(this);
+    }
+
+    private void schedule(long delayMillis) {
+        mView.removeCallbacks(this);
+        mView.postDelayed(this, delayMillis);
+    }
+
+    private void setWindow(int before, int after) {
+        mWindowBefore = before;
+        mWindowAfter = after;
+        mHost.setWindowLimits(before, after);
+    }
+
+    /**
+     * Grow the window by a page on either side.
+     */
+    @Override
+    public void run() {
+        if (!isTrimmed()) {
+            return;
+        }
+        if (mView.getWindowVisibility() != View.VISIBLE) {
+            // Nobody sees the pages, so there is no reason to load them.
+            schedule(GROW_DELAY_MILLIS);
+            return;
+        }
+        if (!mHost.isIdle()) {
+            schedule(GROW_INTERVAL_MILLIS);
+            return;
+        }
+        setWindow(Math.min(mLimitBefore, mWindowBefore + 1), Math.min(mLimitAfter, mWindowAfter + 1));
+        if (mWindowBefore < mLimitBefore || mWindowAfter < mLimitAfter) {
+            schedule(GROW_INTERVAL_MILLIS);
+        } else {
+            mTrimLevel = 0;
+            mTrimmedHidden = false;
+        }
+    }
+
+    /**
+     * Handles the calls to the {@code ComponentCallbacks2} proxy.
+     */
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        final String name = method.getName();
+        if ("onTrimMemory".equals(name)) {
+            trim((Integer) args[0]);
+        } else if ("onLowMemory".equals(name)) {
+            trim(TRIM_MEMORY_COMPLETE);
+        } else if ("equals".equals(name)) {
+            return proxy == args[0];
+        } else if ("hashCode".equals(name)) {
+            return System.identityHashCode(proxy);
+        } else if ("toString".equals(name)) {
+            return "MemoryTrimmer@" + Integer.toHexString(System.identityHashCode(proxy));
+        }
+        return null;
+    }
+}
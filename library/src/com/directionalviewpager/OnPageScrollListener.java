@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+/**
+ * Receives the scroll position of a {@link DirectionalViewPager}. Any number
+ * of listeners can be registered. Scroll changes are reported at most once
+ * per frame, however many touch events or scroller steps moved the pager,
+ * and only as whole pixels so that listeners do no more work than they need.
+ *
+ * @see DirectionalViewPager#addOnPageScrollListener(OnPageScrollListener)
+ */
+public interface OnPageScrollListener {
+    /**
+     * Called once per frame in which the pager scrolled.
+     *
+     * @param position Position of the first page currently visible. Page
+     *            {@code position + 1} is visible too if
+     *            {@code offsetPixels} is not zero.
+     * @param offsetPixels How far the page at {@code position} has scrolled
+     *            out of view, in pixels.
+     * @param pageSize Size of a page along the pager's orientation, in
+     *            pixels.
+     */
+    void onPageScrolled(int position, int offsetPixels, int pageSize);
+
+    /**
+     * Called when a new page becomes selected.
+     *
+     * @param position Position of the newly selected page.
+     */
+    void onPageSelected(int position);
+
+    /**
+     * Called when the scroll state changes.
+     *
+     * @param state One of {@link DirectionalViewPager#SCROLL_STATE_IDLE},
+     *            {@link DirectionalViewPager#SCROLL_STATE_DRAGGING} or
+     *            {@link DirectionalViewPager#SCROLL_STATE_SETTLING}.
+     */
+    void onPageScrollStateChanged(int state);
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import android.os.Process;
+import android.util.Log;
+import android.util.SparseArray;
+
+/**
+ * Tracks the background loads of a {@link PrefetchingAdapter}, keyed by page
+ * position. All methods must be called from the UI thread.
+ */
+final class PagePrefetcher {
+    private static final String TAG = "PagePrefetcher";
+
+    /** Returned from {@link #take(int)} when no data is available. */
+    static final Object NO_DATA = new Object();
+
+    private static Executor sDefaultExecutor;
+
+    private final SparseArray<FutureTask<Object>> mTasks = new SparseArray<FutureTask<Object>>();
+    private Executor mExecutor;
+
+    private static synchronized Executor getDefaultExecutor() {
+        if (sDefaultExecutor == null) {
+            sDefaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    final Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            r.run();
+                        }
+                    }, "DirectionalViewPager prefetch");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sDefaultExecutor;
+    }
+
+    void setExecutor(Executor executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * Cancel loads outside of {@code start..end} and start loads for the
+     * positions in that range which are not already retained by the pager.
+     */
+    void update(final PrefetchingAdapter adapter, int start, int end, ItemInfoBuffer items) {
+        for (int i = mTasks.size() - 1; i >= 0; i--) {
+            final int position = mTasks.keyAt(i);
+            if (position < start || position > end || items.indexOfPosition(position) >= 0) {
+                mTasks.valueAt(i).cancel(true);
+                // Not removeAt(), which is missing before Honeycomb. Walking
+                // backwards, the entries left to visit keep their indices.
+                mTasks.delete(position);
+            }
+        }
+
+        for (int position = start; position <= end && position >= 0; position++) {
+            if (items.indexOfPosition(position) >= 0 || mTasks.get(position) != null) {
+                continue;
+            }
+            if (DirectionalViewPager.DEBUG) Log.v(TAG, "prefetching: " + position);
+            final int prefetchPosition = position;
+            final FutureTask<Object> task = new FutureTask<Object>(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    return adapter.prefetchItem(prefetchPosition);
+                }
+            });
+            mTasks.put(position, task);
+            (mExecutor != null ? mExecutor : getDefaultExecutor()).execute(task);
+        }
+    }
+
+    /**
+     * Remove the load for a page which is about to be instantiated.
+     *
+     * @return The loaded data, or {@link #NO_DATA} if the load has not
+     *         completed or failed. An incomplete load is cancelled.
+     */
+    Object take(int position) {
+        final FutureTask<Object> task = mTasks.get(position);
+        if (task == null) {
+            return NO_DATA;
+        }
+        mTasks.remove(position);
+        if (!task.isDone()) {
+            task.cancel(true);
+            return NO_DATA;
+        }
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            Log.w(TAG, "Prefetch of page " + position + " failed.", e.getCause());
+        } catch (Exception e) {
+            // Cancelled or interrupted, treat as not prefetched.
+        }
+        return NO_DATA;
+    }
+
+    /**
+     * Cancel the loads for pages at or after a position, for example because
+     * the adapter's positions from there on shifted.
+     */
+    void cancelFrom(int position) {
+        for (int i = mTasks.size() - 1; i >= 0; i--) {
+            final int key = mTasks.keyAt(i);
+            if (key >= position) {
+                mTasks.valueAt(i).cancel(true);
+                mTasks.delete(key);
+            }
+        }
+    }
+
+    void cancelAll() {
+        for (int i = mTasks.size() - 1; i >= 0; i--) {
+            mTasks.valueAt(i).cancel(true);
+        }
+        mTasks.clear();
+    }
+}
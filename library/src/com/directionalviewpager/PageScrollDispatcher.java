@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import android.support.v4.view.ViewPager.OnPageChangeListener;
+import android.view.View;
+
+/**
+ * Delivers the page events of a {@link DirectionalViewPager} to its
+ * {@link OnPageChangeListener} and any number of
+ * {@link OnPageScrollListener}s, and applies its {@link PageTransformer}.
+ * Listeners are kept in an array which is copied on write, so that
+ * dispatching neither allocates nor iterates over a copy.
+ */
+final class PageScrollDispatcher {
+    private static final OnPageScrollListener[] NO_LISTENERS = new OnPageScrollListener[0];
+
+    private OnPageChangeListener mOnPageChangeListener;
+    private OnPageScrollListener[] mListeners = NO_LISTENERS;
+    private boolean mScrollPending;
+    private PageTransformer mPageTransformer;
+    private boolean mTransformPending;
+
+    void setOnPageChangeListener(OnPageChangeListener listener) {
+        mOnPageChangeListener = listener;
+    }
+
+    void addListener(OnPageScrollListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener must not be null.");
+        }
+        final OnPageScrollListener[] old = mListeners;
+        final OnPageScrollListener[] listeners = new OnPageScrollListener[old.length + 1];
+        System.arraycopy(old, 0, listeners, 0, old.length);
+        listeners[old.length] = listener;
+        mListeners = listeners;
+    }
+
+    void removeListener(OnPageScrollListener listener) {
+        final OnPageScrollListener[] old = mListeners;
+        for (int i = 0; i < old.length; i++) {
+            if (old[i] == listener) {
+                if (old.length == 1) {
+                    mListeners = NO_LISTENERS;
+                    return;
+                }
+                final OnPageScrollListener[] listeners = new OnPageScrollListener[old.length - 1];
+                System.arraycopy(old, 0, listeners, 0, i);
+                System.arraycopy(old, i + 1, listeners, i, old.length - i - 1);
+                mListeners = listeners;
+                return;
+            }
+        }
+    }
+
+    boolean hasListeners() {
+        return mListeners.length != 0 || mOnPageChangeListener != null;
+    }
+
+    PageTransformer getPageTransformer() {
+        return mPageTransformer;
+    }
+
+    void setPageTransformer(PageTransformer transformer) {
+        mPageTransformer = transformer;
+        mTransformPending = true;
+    }
+
+    /**
+     * Note that the pages moved since the last dispatch.
+     */
+    void onScrollChanged() {
+        mScrollPending = true;
+    }
+
+    /**
+     * Transform the pages on the next dispatch, even if they did not move.
+     */
+    void invalidateTransform() {
+        mTransformPending = true;
+    }
+
+    /**
+     * Report the scroll position to the listeners and transform the pages if
+     * anything moved since the last time.
+     *
+     * @param originItem Item at scroll position 0.
+     * @param scroll Scroll position along the orientation.
+     * @param size Size of a page.
+     */
+    void dispatchPendingScroll(DirectionalViewPager pager, int originItem, int scroll, int size) {
+        final boolean scrolled = mScrollPending;
+        final boolean transform = mPageTransformer != null && (scrolled || mTransformPending);
+        mScrollPending = false;
+        mTransformPending = false;
+        final boolean dispatch = scrolled && hasListeners();
+        if ((!dispatch && !transform) || size <= 0) {
+            return;
+        }
+
+        // Pages before the virtual origin have negative scroll positions.
+        int pages = scroll / size;
+        int offsetPixels = scroll % size;
+        if (offsetPixels < 0) {
+            pages--;
+            offsetPixels += size;
+        }
+        final int position = originItem + pages;
+        if (dispatch) {
+            dispatchPageScrolled(position, offsetPixels, size);
+        }
+        if (transform) {
+            transformPages(pager, position, (float) offsetPixels / size);
+        }
+    }
+
+    private void transformPages(DirectionalViewPager pager, int position, float offset) {
+        final PageTransformer transformer = mPageTransformer;
+        final int orientation = pager.getOrientation();
+        final int count = pager.getChildCount();
+        for (int i = 0; i < count; i++) {
+            final View child = pager.getChildAt(i);
+            final ItemInfo ii = pager.infoForChild(child);
+            if (ii != null) {
+                // Subtract whole pages first to keep the precision of far positions.
+                transformer.transformPage(child, (ii.position - position) - offset, orientation);
+            }
+        }
+    }
+
+    void dispatchPageScrolled(int position, int offsetPixels, int pageSize) {
+        final OnPageScrollListener[] listeners = mListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onPageScrolled(position, offsetPixels, pageSize);
+        }
+        if (mOnPageChangeListener != null) {
+            final float offset = (float) offsetPixels / pageSize;
+            mOnPageChangeListener.onPageScrolled(position, offset, offsetPixels);
+        }
+    }
+
+    void dispatchPageSelected(int position) {
+        final OnPageScrollListener[] listeners = mListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onPageSelected(position);
+        }
+        if (mOnPageChangeListener != null) {
+            mOnPageChangeListener.onPageSelected(position);
+        }
+    }
+
+    void dispatchPageScrollStateChanged(int state) {
+        final OnPageScrollListener[] listeners = mListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onPageScrollStateChanged(state);
+        }
+        if (mOnPageChangeListener != null) {
+            mOnPageChangeListener.onPageScrollStateChanged(state);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import android.view.View;
+
+/**
+ * Applies a custom transformation to the pages of a
+ * {@link DirectionalViewPager} as it scrolls, typically through view
+ * properties such as translation, alpha and scale. Pages being transformed
+ * are drawn through hardware layers while the pager moves.
+ *
+ * @see DirectionalViewPager#setPageTransformer(PageTransformer)
+ */
+public interface PageTransformer {
+    /**
+     * Apply a transformation to a page. Called at most once per frame for
+     * every retained page, and again when pages are added or laid out.
+     *
+     * @param page The page to transform.
+     * @param position Position of the page relative to the current scroll
+     *            position, in pages. 0 is centered, -1 is one page before
+     *            (left or above) and 1 one page after.
+     * @param orientation {@link DirectionalViewPager#HORIZONTAL} or
+     *            {@link DirectionalViewPager#VERTICAL}, the axis along which
+     *            {@code position} runs.
+     */
+    void transformPage(View page, float position, int orientation);
+}
@@ -0,0 +1,513 @@
+/*
+ * Copyright (C) 2011 The Android Open Source Project
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+/**
+ * Decides which pages a pager retains around its current item and keeps
+ * them in sync with the adapter. Creating and destroying the pages
+ * themselves is left to a {@link Host}, so this class has no dependency on
+ * Android and can be benchmarked on a plain JVM.
+ */
+final class PageWindow {
+    /** Mirrors {@code PagerAdapter.POSITION_UNCHANGED}. */
+    static final int POSITION_UNCHANGED = -1;
+    /** Mirrors {@code PagerAdapter.POSITION_NONE}. */
+    static final int POSITION_NONE = -2;
+
+    private static final int DEFAULT_OFFSCREEN_PAGES = 1;
+
+    /** Most items allocated up front for large offscreen limits. */
+    private static final int MAX_RESERVED_ITEMS = 32;
+
+    /** How far from its expected position a page's stable ID is looked for. */
+    private static final int ID_SEARCH_DISTANCE = 16;
+
+    interface Host {
+        /**
+         * Create the page for {@code ii.position} and store it in {@code ii.object}.
+         */
+        void onCreateItem(ItemInfo ii);
+
+        /**
+         * Destroy the page of a retained item which is being removed.
+         */
+        void onDestroyItem(ItemInfo ii);
+
+        /**
+         * Returns the new position of a page, or {@link #POSITION_UNCHANGED}
+         * or {@link #POSITION_NONE}.
+         */
+        int getItemPosition(Object object);
+
+        /**
+         * Returns whether {@link #getItemId(int)} and {@code ItemInfo.id}
+         * identify items across data set changes.
+         */
+        boolean hasStableIds();
+
+        long getItemId(int position);
+    }
+
+    private final Host mHost;
+    private final ItemInfoBuffer mItems = new ItemInfoBuffer();
+    private int mLimitBefore = DEFAULT_OFFSCREEN_PAGES;
+    private int mLimitAfter = DEFAULT_OFFSCREEN_PAGES;
+    private int mFollowedItem = -1;
+    private boolean mCurrentItemRemoved;
+
+    PageWindow(Host host) {
+        mHost = host;
+        reserve();
+    }
+
+    ItemInfoBuffer getItems() {
+        return mItems;
+    }
+
+    int getLimitBefore() {
+        return mLimitBefore;
+    }
+
+    int getLimitAfter() {
+        return mLimitAfter;
+    }
+
+    void setLimits(int before, int after) {
+        mLimitBefore = before;
+        mLimitAfter = after;
+        reserve();
+    }
+
+    /**
+     * Allocate the items of a full window up front, plus the one created
+     * ahead of the page it replaces when the window slides.
+     */
+    private void reserve() {
+        mItems.reserve((int) Math.min(MAX_RESERVED_ITEMS, (long) mLimitBefore + mLimitAfter + 2));
+    }
+
+    /**
+     * Returns the first position retained around {@code current}.
+     */
+    int getStart(int current) {
+        return (int) Math.max(0L, (long) current - mLimitBefore);
+    }
+
+    /**
+     * Returns the last position retained around {@code current}.
+     */
+    int getEnd(int current, int count) {
+        return (int) Math.min(count - 1L, (long) current + mLimitAfter);
+    }
+
+    /**
+     * Returns whether moving from {@code from} to {@code to} leaves pages in
+     * between which will not be retained around {@code to}.
+     */
+    boolean isJump(int from, int to) {
+        return (long) to - from > mLimitBefore || (long) from - to > mLimitAfter;
+    }
+
+    /**
+     * Keep every currently retained page until {@link #clearScrolling()}.
+     */
+    void markScrolling() {
+        for (int i = 0; i < mItems.size(); i++) {
+            mItems.get(i).scrolling = true;
+        }
+    }
+
+    /**
+     * Release the pages kept by {@link #markScrolling()}.
+     *
+     * @return Whether any page was kept and the window needs populating.
+     */
+    boolean clearScrolling() {
+        boolean cleared = false;
+        for (int i = 0; i < mItems.size(); i++) {
+            final ItemInfo ii = mItems.get(i);
+            if (ii.scrolling) {
+                cleared = true;
+                ii.scrolling = false;
+            }
+        }
+        return cleared;
+    }
+
+    /**
+     * Add and remove pages so that exactly the pages around {@code current}
+     * are retained, along with any pages kept for scrolling.
+     */
+    void populate(int current, int count) {
+        final int startPos = getStart(current);
+        final int endPos = getEnd(current, count);
+
+        // Add and remove pages in the existing list.
+        int lastPos = -1;
+        for (int i=0; i<mItems.size(); i++) {
+            ItemInfo ii = mItems.get(i);
+            if ((ii.position < startPos || ii.position > endPos) && !ii.scrolling) {
+                mItems.remove(i);
+                i--;
+                mHost.onDestroyItem(ii);
+                mItems.recycle(ii);
+            } else if (lastPos < endPos && ii.position > startPos) {
+                // The next item is outside of our range, but we have a gap
+                // between it and the last item where we want to have a page
+                // shown.  Fill in the gap.
+                lastPos++;
+                if (lastPos < startPos) {
+                    lastPos = startPos;
+                }
+                while (lastPos <= endPos && lastPos < ii.position) {
+                    addItem(lastPos, i);
+                    lastPos++;
+                    i++;
+                }
+            }
+            lastPos = ii.position;
+        }
+
+        // Add any new pages we need at the end.
+        lastPos = mItems.size() > 0 ? mItems.get(mItems.size()-1).position : -1;
+        if (lastPos < endPos) {
+            lastPos++;
+            lastPos = lastPos > startPos ? lastPos : startPos;
+            while (lastPos <= endPos) {
+                addItem(lastPos, -1);
+                lastPos++;
+            }
+        }
+    }
+
+    private void addItem(int position, int index) {
+        final ItemInfo ii = mItems.obtain();
+        ii.position = position;
+        ii.scrolling = false;
+        mHost.onCreateItem(ii);
+        if (index < 0) {
+            mItems.add(ii);
+        } else {
+            mItems.add(index, ii);
+        }
+    }
+
+    /**
+     * Ask the host for the new position of every retained page, destroying
+     * the pages which are gone. Afterwards {@link #getFollowedItem()} tells
+     * where the current item went, if it moved.
+     *
+     * @return Whether the window needs populating.
+     */
+    boolean dataSetChanged(int current, int count) {
+        if (mHost.hasStableIds()) {
+            return stableDataSetChanged(current, count);
+        }
+
+        boolean needPopulate = mItems.isEmpty() && count > 0;
+        int newCurrItem = -1;
+        mCurrentItemRemoved = false;
+
+        for (int i = 0; i < mItems.size(); i++) {
+            final ItemInfo ii = mItems.get(i);
+            final int newPos = mHost.getItemPosition(ii.object);
+
+            if (newPos == POSITION_UNCHANGED) {
+                continue;
+            }
+
+            if (newPos == POSITION_NONE) {
+                mItems.remove(i);
+                i--;
+                mHost.onDestroyItem(ii);
+                needPopulate = true;
+
+                if (current == ii.position) {
+                    // Keep the current item in the valid range
+                    newCurrItem = Math.max(0, Math.min(current, count - 1));
+                    mCurrentItemRemoved = true;
+                }
+                mItems.recycle(ii);
+                continue;
+            }
+
+            if (ii.position != newPos) {
+                if (ii.position == current) {
+                    // Our current item changed position. Follow it.
+                    newCurrItem = newPos;
+                }
+
+                ii.position = newPos;
+                needPopulate = true;
+            }
+        }
+
+        if (needPopulate) {
+            // Items may have moved past each other.
+            mItems.sort();
+        }
+        mFollowedItem = newCurrItem;
+        return needPopulate;
+    }
+
+    private boolean stableDataSetChanged(int current, int count) {
+        boolean needPopulate = mItems.isEmpty() && count > 0;
+        int newCurrItem = -1;
+        mCurrentItemRemoved = false;
+
+        // The current page is found first, as the likeliest guess of how far
+        // the others moved.
+        final int currentIndex = mItems.indexOfPosition(current);
+        final ItemInfo currentInfo = currentIndex >= 0 ? mItems.get(currentIndex) : null;
+        final int currentPos = currentInfo != null
+                ? findItem(currentInfo, current, count) : POSITION_NONE;
+
+        // Pages usually move together, so look for each one where the
+        // previous page ended up relative to its old position, starting
+        // from where the current page went.
+        int shift = currentPos >= 0 ? currentPos - current : 0;
+        for (int i = 0; i < mItems.size(); i++) {
+            final ItemInfo ii = mItems.get(i);
+            int newPos;
+            if (ii == currentInfo) {
+                newPos = currentPos;
+            } else {
+                newPos = findItem(ii, (long) ii.position + shift, count);
+            }
+
+            if (newPos == POSITION_NONE) {
+                mItems.remove(i);
+                i--;
+                mHost.onDestroyItem(ii);
+                needPopulate = true;
+
+                if (current == ii.position) {
+                    newCurrItem = Math.max(0, Math.min(current, count - 1));
+                    mCurrentItemRemoved = true;
+                }
+                mItems.recycle(ii);
+                // The pages after it likely moved up into its place.
+                shift--;
+                continue;
+            }
+
+            shift = newPos - ii.position;
+            if (shift != 0) {
+                if (ii.position == current) {
+                    newCurrItem = newPos;
+                }
+                ii.position = newPos;
+                needPopulate = true;
+            }
+        }
+
+        if (needPopulate) {
+            mItems.sort();
+        }
+        mFollowedItem = newCurrItem;
+        return needPopulate;
+    }
+
+    /**
+     * Returns the new position of a page with a stable ID, looking for the ID
+     * near {@code expected} and asking the host beyond that. The search is
+     * bounded so that a data set change costs the same in any adapter.
+     *
+     * @return The position, or {@link #POSITION_NONE} if the page is gone.
+     */
+    private int findItem(ItemInfo ii, long expected, int count) {
+        int newPos = findItemId(ii.id, expected, count, ID_SEARCH_DISTANCE);
+        if (newPos < 0) {
+            newPos = mHost.getItemPosition(ii.object);
+            if (newPos == POSITION_UNCHANGED) {
+                // Something else has this page's ID now.
+                newPos = POSITION_NONE;
+            }
+        }
+        return newPos;
+    }
+
+    /**
+     * Returns the position within {@code maxDistance} of {@code expected}
+     * holding an item ID, or -1. The closest positions are tried first.
+     */
+    private int findItemId(long id, long expected, int count, int maxDistance) {
+        for (int distance = 0; distance <= maxDistance; distance++) {
+            final long after = expected + distance;
+            final long before = expected - distance;
+            if (after >= count && before < 0) {
+                break;
+            }
+            if (after >= 0 && after < count && mHost.getItemId((int) after) == id) {
+                return (int) after;
+            }
+            if (distance > 0 && before >= 0 && before < count && mHost.getItemId((int) before) == id) {
+                return (int) before;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Shift the retained pages at or after {@code start} by {@code count}
+     * newly inserted positions.
+     *
+     * @return Whether any retained page moved or the window needs populating.
+     */
+    boolean itemRangeInserted(int current, int start, int count, int adapterCount) {
+        boolean changed = false;
+        for (int i = 0; i < mItems.size(); i++) {
+            final ItemInfo ii = mItems.get(i);
+            if (ii.position >= start) {
+                ii.position += count;
+                changed = true;
+            }
+        }
+        mFollowedItem = current >= start ? current + count : -1;
+        mCurrentItemRemoved = false;
+        return changed || !isComplete(mFollowedItem >= 0 ? mFollowedItem : current, adapterCount);
+    }
+
+    /**
+     * Destroy the retained pages within {@code count} removed positions from
+     * {@code start} and shift the pages after them.
+     *
+     * @return Whether any retained page moved or the window needs populating.
+     */
+    boolean itemRangeRemoved(int current, int start, int count, int adapterCount) {
+        final int end = start + count;
+        boolean changed = false;
+        for (int i = 0; i < mItems.size(); i++) {
+            final ItemInfo ii = mItems.get(i);
+            if (ii.position >= end) {
+                ii.position -= count;
+                changed = true;
+            } else if (ii.position >= start) {
+                mItems.remove(i);
+                i--;
+                mHost.onDestroyItem(ii);
+                mItems.recycle(ii);
+                changed = true;
+            }
+        }
+        mCurrentItemRemoved = false;
+        if (current >= end) {
+            mFollowedItem = current - count;
+        } else if (current >= start) {
+            // The current item is gone, show whichever took its place.
+            mFollowedItem = Math.max(0, Math.min(start, adapterCount - 1));
+            mCurrentItemRemoved = true;
+        } else {
+            mFollowedItem = -1;
+        }
+        return changed || !isComplete(mFollowedItem >= 0 ? mFollowedItem : current, adapterCount);
+    }
+
+    /**
+     * Reassign the positions of the retained pages after a block of
+     * {@code count} positions moved from {@code from} to {@code to}.
+     *
+     * @return Whether any retained page moved or the window needs populating.
+     */
+    boolean itemRangeMoved(int current, int from, int to, int count, int adapterCount) {
+        boolean changed = false;
+        for (int i = 0; i < mItems.size(); i++) {
+            final ItemInfo ii = mItems.get(i);
+            final int newPos = movedPosition(ii.position, from, to, count);
+            if (newPos != ii.position) {
+                ii.position = newPos;
+                changed = true;
+            }
+        }
+        if (changed) {
+            mItems.sort();
+        }
+        final int newCurrent = movedPosition(current, from, to, count);
+        mFollowedItem = newCurrent != current ? newCurrent : -1;
+        mCurrentItemRemoved = false;
+        return changed || !isComplete(newCurrent, adapterCount);
+    }
+
+    /**
+     * Destroy the retained pages within {@code count} changed positions from
+     * {@code start} so that they are recreated by the next populate.
+     *
+     * @return Whether any retained page was destroyed.
+     */
+    boolean itemRangeChanged(int start, int count) {
+        final int end = start + count;
+        boolean changed = false;
+        for (int i = 0; i < mItems.size(); i++) {
+            final ItemInfo ii = mItems.get(i);
+            if (ii.position >= start && ii.position < end) {
+                mItems.remove(i);
+                i--;
+                mHost.onDestroyItem(ii);
+                mItems.recycle(ii);
+                changed = true;
+            }
+        }
+        mFollowedItem = -1;
+        mCurrentItemRemoved = false;
+        return changed;
+    }
+
+    static int movedPosition(int position, int from, int to, int count) {
+        if (position >= from && position < from + count) {
+            return position - from + to;
+        }
+        if (to < from && position >= to && position < from) {
+            return position + count;
+        }
+        if (to > from && position >= from + count && position < to + count) {
+            return position - count;
+        }
+        return position;
+    }
+
+    /**
+     * Returns whether exactly the pages around {@code current} are retained.
+     */
+    boolean isComplete(int current, int count) {
+        if (count <= 0) {
+            return mItems.isEmpty();
+        }
+        final int start = getStart(current);
+        final int end = getEnd(current, count);
+        final int size = mItems.size();
+        return size == end - start + 1
+                && mItems.get(0).position == start
+                && mItems.get(size - 1).position == end;
+    }
+
+    /**
+     * Returns the new current item decided by the last data set or range
+     * change, or -1 if it did not change.
+     */
+    int getFollowedItem() {
+        return mFollowedItem;
+    }
+
+    /**
+     * Returns whether the page of the current item was destroyed by the last
+     * data set or range change, rather than just moved.
+     */
+    boolean wasCurrentItemRemoved() {
+        return mCurrentItemRemoved;
+    }
+}
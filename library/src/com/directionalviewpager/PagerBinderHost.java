@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+/**
+ * Lets the {@link PlaceholderBinder} of a {@link DirectionalViewPager} bind
+ * its placeholder pages once it is at rest.
+ */
+final class PagerBinderHost implements PlaceholderBinder.Host {
+    private final DirectionalViewPager mPager;
+
+    PagerBinderHost(DirectionalViewPager pager) {
+        mPager = pager;
+    }
+
+    @Override
+    public boolean isIdle() {
+        return mPager.mScrollState == DirectionalViewPager.SCROLL_STATE_IDLE
+                && mPager.getAdapter() != null;
+    }
+
+    @Override
+    public void bindPlaceholders() {
+        mPager.bindPlaceholders();
+    }
+}
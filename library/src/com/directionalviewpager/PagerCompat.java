@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import java.lang.reflect.Method;
+import android.content.Context;
+import android.graphics.Paint;
+import android.os.Build;
+import android.util.Log;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.WindowManager;
+
+/**
+ * Access to framework methods newer than the platform this library is
+ * compiled against. Every method is a no-op on versions which lack it.
+ *
+ * <p>Argument arrays are reused between calls, so these methods must only be
+ * called from the UI thread.</p>
+ */
+final class PagerCompat {
+    private static final String TAG = "PagerCompat";
+
+    static final int LAYER_TYPE_NONE = 0;
+    static final int LAYER_TYPE_HARDWARE = 2;
+
+    private static final int ECLAIR = 5;
+    private static final int HONEYCOMB = 11;
+    private static final int JELLY_BEAN = 16;
+
+    private static final float DEFAULT_REFRESH_RATE = 60;
+
+    private static final Method SET_LAYER_TYPE;
+    private static final Method POST_ON_ANIMATION;
+    private static final Method GET_POINTER_COUNT;
+
+    static {
+        Method setLayerType = null;
+        if (Build.VERSION.SDK_INT >= HONEYCOMB) {
+            try {
+                setLayerType = View.class.getMethod("setLayerType", int.class, Paint.class);
+            } catch (NoSuchMethodException e) {
+                Log.w(TAG, "Unable to find setLayerType.", e);
+            }
+        }
+        SET_LAYER_TYPE = setLayerType;
+
+        Method postOnAnimation = null;
+        if (Build.VERSION.SDK_INT >= JELLY_BEAN) {
+            try {
+                postOnAnimation = View.class.getMethod("postOnAnimation", Runnable.class);
+            } catch (NoSuchMethodException e) {
+                Log.w(TAG, "Unable to find postOnAnimation.", e);
+            }
+        }
+        POST_ON_ANIMATION = postOnAnimation;
+
+        Method getPointerCount = null;
+        if (Build.VERSION.SDK_INT >= ECLAIR) {
+            try {
+                getPointerCount = MotionEvent.class.getMethod("getPointerCount");
+            } catch (NoSuchMethodException e) {
+                Log.w(TAG, "Unable to find getPointerCount.", e);
+            }
+        }
+        GET_POINTER_COUNT = getPointerCount;
+    }
+
+    private static final Object[] LAYER_TYPE_NONE_ARGS = { LAYER_TYPE_NONE, null };
+    private static final Object[] LAYER_TYPE_HARDWARE_ARGS = { LAYER_TYPE_HARDWARE, null };
+    private static final Object[] RUNNABLE_ARGS = new Object[1];
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private PagerCompat() {}
+
+    /**
+     * Returns whether views have transformation properties such as
+     * translation, alpha and scale.
+     */
+    static boolean isViewPropertySupported() {
+        return Build.VERSION.SDK_INT >= HONEYCOMB;
+    }
+
+    /**
+     * Returns the time between two frames of the default display.
+     */
+    static float getFrameIntervalMillis(Context context) {
+        final WindowManager wm = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        final float refreshRate = wm.getDefaultDisplay().getRefreshRate();
+        return 1000 / (refreshRate >= 1 ? refreshRate : DEFAULT_REFRESH_RATE);
+    }
+
+    static boolean isLayerTypeSupported() {
+        return SET_LAYER_TYPE != null;
+    }
+
+    static void setLayerType(View view, int layerType) {
+        if (SET_LAYER_TYPE == null) {
+            return;
+        }
+        try {
+            // The framework ignores requests for the layer type a view already has.
+            SET_LAYER_TYPE.invoke(view, layerType == LAYER_TYPE_HARDWARE
+                    ? LAYER_TYPE_HARDWARE_ARGS : LAYER_TYPE_NONE_ARGS);
+        } catch (Exception e) {
+            Log.w(TAG, "Unable to set layer type.", e);
+        }
+    }
+
+    /**
+     * Returns the number of pointers in {@code event}, which is always one
+     * before multi-touch.
+     */
+    static int getPointerCount(MotionEvent event) {
+        if (GET_POINTER_COUNT == null) {
+            return 1;
+        }
+        try {
+            return (Integer) GET_POINTER_COUNT.invoke(event, NO_ARGS);
+        } catch (Exception e) {
+            Log.w(TAG, "Unable to get pointer count.", e);
+            return 1;
+        }
+    }
+
+    /**
+     * Run {@code action} at the start of the next display frame.
+     *
+     * @return false if the platform has no frame callbacks, in which case
+     * nothing was posted.
+     */
+    static boolean postOnAnimation(View view, Runnable action) {
+        if (POST_ON_ANIMATION == null) {
+            return false;
+        }
+        RUNNABLE_ARGS[0] = action;
+        try {
+            POST_ON_ANIMATION.invoke(view, RUNNABLE_ARGS);
+            return true;
+        } catch (Exception e) {
+            Log.w(TAG, "Unable to post on animation.", e);
+            return false;
+        } finally {
+            RUNNABLE_ARGS[0] = null;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import android.support.v4.view.VerticalViewPagerCompat;
+
+/**
+ * Passes the changes an adapter reports on to the {@link DirectionalViewPager}
+ * showing it.
+ */
+final class PagerDataSetObserver implements VerticalViewPagerCompat.DataSetObserver {
+    private final DirectionalViewPager mPager;
+
+    PagerDataSetObserver(DirectionalViewPager pager) {
+        mPager = pager;
+    }
+
+    @Override
+    public void onDataSetChanged() {
+        mPager.dataSetChanged();
+    }
+
+    @Override
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+        mPager.itemRangeChanged(DirectionalViewPager.RANGE_INSERTED,
+                positionStart, positionStart, itemCount);
+    }
+
+    @Override
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+        mPager.itemRangeChanged(DirectionalViewPager.RANGE_REMOVED,
+                positionStart, positionStart, itemCount);
+    }
+
+    @Override
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+        mPager.itemRangeChanged(DirectionalViewPager.RANGE_MOVED,
+                fromPosition, toPosition, itemCount);
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount) {
+        mPager.itemRangeChanged(DirectionalViewPager.RANGE_CHANGED,
+                positionStart, positionStart, itemCount);
+    }
+}
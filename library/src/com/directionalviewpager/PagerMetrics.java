@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+/**
+ * {@link PagerMetricsListener} which keeps a count and a latency histogram
+ * for every event type. Recording never allocates; {@link #snapshot()} copies
+ * the current values so they can be exported away from the UI thread.
+ *
+ * <pre>
+ * PagerMetrics metrics = new PagerMetrics();
+ * pager.setMetricsListener(metrics);
+ * // ...
+ * Log.d(TAG, metrics.snapshot().toString());
+ * </pre>
+ */
+public class PagerMetrics implements PagerMetricsListener {
+    private static final String[] EVENT_NAMES = {
+        "populate", "instantiateItem", "destroyItem", "measure", "layout",
+        "dataSetChanged", "scrollFrame", "settleFrameDropped", "settleFrameDuplicated",
+    };
+
+    /**
+     * Latency histogram with power-of-two buckets. Bucket {@code i} counts
+     * durations of less than {@code 2^i} nanoseconds which did not fit in
+     * bucket {@code i - 1}.
+     */
+    public static final class Histogram {
+        public static final int BUCKET_COUNT = 64;
+
+        final long[] mBuckets = new long[BUCKET_COUNT];
+        long mCount;
+        long mTotalNanos;
+        long mMaxNanos;
+
+        void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            mBuckets[64 - Long.numberOfLeadingZeros(nanos)]++;
+            mCount++;
+            mTotalNanos += nanos;
+            if (nanos > mMaxNanos) {
+                mMaxNanos = nanos;
+            }
+        }
+
+        void copyTo(Histogram other) {
+            System.arraycopy(mBuckets, 0, other.mBuckets, 0, BUCKET_COUNT);
+            other.mCount = mCount;
+            other.mTotalNanos = mTotalNanos;
+            other.mMaxNanos = mMaxNanos;
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                mBuckets[i] = 0;
+            }
+            mCount = 0;
+            mTotalNanos = 0;
+            mMaxNanos = 0;
+        }
+
+        public long getCount() {
+            return mCount;
+        }
+
+        public long getTotalNanos() {
+            return mTotalNanos;
+        }
+
+        public long getMaxNanos() {
+            return mMaxNanos;
+        }
+
+        public long getMeanNanos() {
+            return mCount == 0 ? 0 : mTotalNanos / mCount;
+        }
+
+        public long getBucketCount(int bucket) {
+            return mBuckets[bucket];
+        }
+
+        /**
+         * Returns an upper bound for the given percentile, in nanoseconds.
+         *
+         * @param percentile Percentile between 0 and 100.
+         */
+        public long getPercentileNanos(double percentile) {
+            if (mCount == 0) {
+                return 0;
+            }
+            final long rank = (long) Math.ceil(mCount * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += mBuckets[i];
+                if (seen >= rank && seen > 0) {
+                    // The largest value is a tighter bound for the last bucket.
+                    return i == 0 ? 0 : Math.min((1L << i) - 1, mMaxNanos);
+                }
+            }
+            return mMaxNanos;
+        }
+    }
+
+    /**
+     * Copy of the histograms of every event type at one point in time.
+     */
+    public static final class Snapshot {
+        final Histogram[] mHistograms = new Histogram[EVENT_COUNT];
+
+        Snapshot() {
+            for (int i = 0; i < EVENT_COUNT; i++) {
+                mHistograms[i] = new Histogram();
+            }
+        }
+
+        /**
+         * @param event One of the {@code PagerMetricsListener.EVENT_*} constants.
+         */
+        public Histogram getHistogram(int event) {
+            return mHistograms[event];
+        }
+
+        /**
+         * One line per event type with its count and latencies in microseconds.
+         */
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < EVENT_COUNT; i++) {
+                final Histogram h = mHistograms[i];
+                builder.append(getEventName(i))
+                        .append(" count=").append(h.getCount())
+                        .append(" mean=").append(h.getMeanNanos() / 1000)
+                        .append("us p50=").append(h.getPercentileNanos(50) / 1000)
+                        .append("us p90=").append(h.getPercentileNanos(90) / 1000)
+                        .append("us p99=").append(h.getPercentileNanos(99) / 1000)
+                        .append("us max=").append(h.getMaxNanos() / 1000)
+                        .append("us\n");
+            }
+            return builder.toString();
+        }
+    }
+
+    private final Histogram[] mHistograms = new Histogram[EVENT_COUNT];
+
+    public PagerMetrics() {
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            mHistograms[i] = new Histogram();
+        }
+    }
+
+    /**
+     * Returns a human readable name for an event type.
+     */
+    public static String getEventName(int event) {
+        return EVENT_NAMES[event];
+    }
+
+    @Override
+    public void onPagerEvent(int event, long durationNanos) {
+        mHistograms[event].record(durationNanos);
+    }
+
+    /**
+     * Copy the values recorded so far. Must be called from the thread the
+     * pager runs on.
+     */
+    public Snapshot snapshot() {
+        final Snapshot snapshot = new Snapshot();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            mHistograms[i].copyTo(snapshot.mHistograms[i]);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Forget every value recorded so far.
+     */
+    public void reset() {
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            mHistograms[i].reset();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+/**
+ * Receives the duration of the work a {@link DirectionalViewPager} does on
+ * the UI thread. Callbacks happen on the hot paths of the pager and must not
+ * allocate or block.
+ *
+ * @see DirectionalViewPager#setMetricsListener(PagerMetricsListener)
+ * @see PagerMetrics
+ */
+public interface PagerMetricsListener {
+    /** Adding and removing pages to match the current item. */
+    int EVENT_POPULATE = 0;
+    /** Creating a single page through the adapter. */
+    int EVENT_INSTANTIATE_ITEM = 1;
+    /** Destroying a single page through the adapter. */
+    int EVENT_DESTROY_ITEM = 2;
+    /** Measuring the pager and its pages. */
+    int EVENT_MEASURE = 3;
+    /** Laying out the pager and its pages. */
+    int EVENT_LAYOUT = 4;
+    /** Reacting to a change of the adapter's data. */
+    int EVENT_DATA_SET_CHANGED = 5;
+    /** Advancing the settle animation by one frame. */
+    int EVENT_SCROLL_FRAME = 6;
+    /**
+     * A frame of the settle animation came more than half a display refresh
+     * late, so at least one frame was missed. The duration is how late it was.
+     */
+    int EVENT_SETTLE_FRAME_DROPPED = 7;
+    /** A frame of the settle animation which left the pages where they were. */
+    int EVENT_SETTLE_FRAME_DUPLICATED = 8;
+
+    /** Number of event types. */
+    int EVENT_COUNT = 9;
+
+    /**
+     * Called after the pager finished a unit of work.
+     *
+     * @param event One of the {@code EVENT_*} constants.
+     * @param durationNanos Wall time spent on the work in nanoseconds.
+     */
+    void onPagerEvent(int event, long durationNanos);
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+/**
+ * Decides where a released drag goes and how the pages move there.
+ *
+ * <p>Positions are scroll positions along the pager's orientation, in
+ * pixels. Velocities are in pixels per second and positive towards later
+ * pages. Every computation depends only on the times passed in, so an
+ * animation can be stepped with a fake clock away from a device.</p>
+ *
+ * <p>An instance holds the state of one animation at a time and must not be
+ * shared between pagers.</p>
+ *
+ * @see DirectionalViewPager#setPagerPhysics(PagerPhysics)
+ */
+public abstract class PagerPhysics {
+    private int mStart;
+    private int mEnd;
+    private int mPosition;
+    private long mStartTime;
+    private boolean mFinished = true;
+
+    /**
+     * Returns by how many pages to move on from the page a drag started on,
+     * beyond the whole pages it already covered. By default a drag moves on
+     * when it is released faster than {@code minimumVelocity} or covered at
+     * least a third of a page.
+     *
+     * @param distance How far the pages were dragged, positive towards later
+     * pages.
+     * @param pageSize Size of a page.
+     * @param velocity Velocity of the pages when the drag was released.
+     * @param minimumVelocity The platform's minimum fling velocity.
+     * @return -1, 0 or 1.
+     */
+    public int getTargetPageOffset(int distance, int pageSize, float velocity, int minimumVelocity) {
+        final int remainder = pageSize > 0 ? distance % pageSize : distance;
+        if (Math.abs(velocity) > minimumVelocity || Math.abs(remainder) >= pageSize / 3) {
+            return distance < 0 ? -1 : 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Start moving from {@code start} to {@code end}.
+     *
+     * @param velocity Velocity at {@code start}, such as that of a fling.
+     * @param timeMillis Time the animation starts at.
+     */
+    public final void start(int start, int end, float velocity, long timeMillis) {
+        mStart = start;
+        mEnd = end;
+        mPosition = start;
+        mStartTime = timeMillis;
+        mFinished = false;
+        onStart(end - start, velocity);
+    }
+
+    /**
+     * Compute the position at {@code timeMillis}. The frame which reaches the
+     * end still returns true, so it can be drawn.
+     *
+     * @return false if the animation had already finished.
+     */
+    public final boolean update(long timeMillis) {
+        if (mFinished) {
+            return false;
+        }
+        final long elapsed = Math.max(0, timeMillis - mStartTime);
+        if (isAtRest(elapsed)) {
+            mPosition = mEnd;
+            mFinished = true;
+        } else {
+            mPosition = mStart + Math.round(getOffset(elapsed));
+        }
+        return true;
+    }
+
+    /**
+     * Stop the animation, jumping to its end.
+     */
+    public final void finish() {
+        mPosition = mEnd;
+        mFinished = true;
+    }
+
+    public final int getPosition() {
+        return mPosition;
+    }
+
+    public final int getEnd() {
+        return mEnd;
+    }
+
+    public final boolean isFinished() {
+        return mFinished;
+    }
+
+    /**
+     * Called when an animation starts.
+     *
+     * @param distance How far the animation goes.
+     * @param velocity Velocity at its start.
+     */
+    protected abstract void onStart(int distance, float velocity);
+
+    /**
+     * Returns how far the animation has gone after {@code elapsedMillis}.
+     */
+    protected abstract float getOffset(long elapsedMillis);
+
+    /**
+     * Returns whether the animation has come to rest at its end after
+     * {@code elapsedMillis}.
+     */
+    protected abstract boolean isAtRest(long elapsedMillis);
+}
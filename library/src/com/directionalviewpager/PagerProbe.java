@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+/**
+ * Reports a unit of pager work to the {@link PagerMetricsListener} and, when
+ * {@link PagerTrace} is enabled, as a trace section. Without either, a unit of
+ * work costs a field read and a flag check on each end.
+ */
+final class PagerProbe {
+    private PagerMetricsListener mMetricsListener;
+    /** Sections begun and not ended yet, so toggling tracing never unbalances them. */
+    private int mOpenSections;
+
+    void setMetricsListener(PagerMetricsListener listener) {
+        mMetricsListener = listener;
+    }
+
+    /**
+     * Start a unit of work.
+     *
+     * @param event One of the {@code PagerMetricsListener.EVENT_*} constants.
+     * @return The time to pass to {@link #end(int, long)}.
+     */
+    long begin(int event) {
+        if (PagerTrace.sEnabled) {
+            PagerTrace.beginSection(event);
+            mOpenSections++;
+        }
+        return mMetricsListener != null ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Start a unit of work on the page at {@code position}.
+     */
+    long begin(int event, int position) {
+        if (PagerTrace.sEnabled) {
+            PagerTrace.beginSection(event, position);
+            mOpenSections++;
+        }
+        return mMetricsListener != null ? System.nanoTime() : 0;
+    }
+
+    void end(int event, long start) {
+        final PagerMetricsListener metrics = mMetricsListener;
+        if (metrics != null && start != 0) {
+            metrics.onPagerEvent(event, System.nanoTime() - start);
+        }
+        if (mOpenSections > 0) {
+            mOpenSections--;
+            PagerTrace.endSection();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+/**
+ * Moves a {@link DirectionalViewPager} along each frame of its
+ * {@link SettleAnimator} and completes the scroll when it stops.
+ */
+final class PagerSettleHost implements SettleAnimator.Host {
+    private final DirectionalViewPager mPager;
+
+    PagerSettleHost(DirectionalViewPager pager) {
+        mPager = pager;
+    }
+
+    @Override
+    public boolean onSettleFrame(int position) {
+        final PagerProbe probe = mPager.mProbe;
+        final long start = probe.begin(PagerMetricsListener.EVENT_SCROLL_FRAME);
+        // Only redraws if the position changed.
+        final boolean moved = mPager.scrollAlong(position);
+        mPager.dispatchPendingScroll();
+        probe.end(PagerMetricsListener.EVENT_SCROLL_FRAME, start);
+        return moved;
+    }
+
+    @Override
+    public void finishSettle() {
+        mPager.completeScroll();
+        mPager.dispatchPendingScroll();
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import java.lang.reflect.Method;
+import android.os.Build;
+import android.support.v4.view.ViewPager;
+import android.util.Log;
+
+/**
+ * Marks the work of every {@link DirectionalViewPager} in system traces
+ * taken with systrace or Perfetto, on Android 4.3 and newer.
+ *
+ * <p>Populating, measuring and laying out, creating and destroying pages,
+ * data set changes and settle animation frames become trace sections, named
+ * after the matching {@link PagerMetricsListener} events. Every scroll from
+ * leaving {@link ViewPager#SCROLL_STATE_IDLE} until returning to it is an
+ * asynchronous section, with one nested inside for each of its dragging and
+ * settling phases.</p>
+ *
+ * <p>Tracing is off by default. While it is off, the pager only checks a
+ * flag.</p>
+ */
+public final class PagerTrace {
+    private static final String TAG = "PagerTrace";
+
+    private static final String PREFIX = "DirectionalViewPager#";
+    private static final String SCROLL = PREFIX + "scroll";
+    private static final String DRAGGING = PREFIX + "dragging";
+    private static final String SETTLING = PREFIX + "settling";
+    static final String COMPUTE_SCROLL = PREFIX + "computeScroll";
+
+    private static final int JELLY_BEAN_MR2 = 18;
+    private static final int Q = 29;
+    /** Trace tag of applications, for the hidden methods before Android 10. */
+    private static final long TRACE_TAG_APP = 1L << 12;
+
+    private static final Method BEGIN_SECTION;
+    private static final Method END_SECTION;
+    private static final Method BEGIN_ASYNC_SECTION;
+    private static final Method END_ASYNC_SECTION;
+    private static final boolean ASYNC_TAGGED;
+
+    static {
+        Method beginSection = null;
+        Method endSection = null;
+        Method beginAsyncSection = null;
+        Method endAsyncSection = null;
+        boolean asyncTagged = false;
+        if (Build.VERSION.SDK_INT >= JELLY_BEAN_MR2) {
+            try {
+                final Class<?> trace = Class.forName("android.os.Trace");
+                beginSection = trace.getMethod("beginSection", String.class);
+                endSection = trace.getMethod("endSection");
+                try {
+                    if (Build.VERSION.SDK_INT >= Q) {
+                        beginAsyncSection = trace.getMethod("beginAsyncSection", String.class, int.class);
+                        endAsyncSection = trace.getMethod("endAsyncSection", String.class, int.class);
+                    } else {
+                        beginAsyncSection = trace.getMethod("asyncTraceBegin", long.class, String.class, int.class);
+                        endAsyncSection = trace.getMethod("asyncTraceEnd", long.class, String.class, int.class);
+                        asyncTagged = true;
+                    }
+                } catch (NoSuchMethodException e) {
+                    Log.w(TAG, "Unable to find async trace sections.", e);
+                    beginAsyncSection = null;
+                    endAsyncSection = null;
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Unable to find trace sections.", e);
+                beginSection = null;
+                endSection = null;
+            }
+        }
+        BEGIN_SECTION = beginSection;
+        END_SECTION = endSection;
+        BEGIN_ASYNC_SECTION = beginAsyncSection;
+        END_ASYNC_SECTION = endAsyncSection;
+        ASYNC_TAGGED = asyncTagged;
+    }
+
+    private static final String[] SECTION_NAMES = new String[PagerMetricsListener.EVENT_COUNT];
+
+    static {
+        for (int i = 0; i < SECTION_NAMES.length; i++) {
+            SECTION_NAMES[i] = PREFIX + PagerMetrics.getEventName(i);
+        }
+    }
+
+    private static final Object[] NO_ARGS = new Object[0];
+    private static final Object[] SECTION_ARGS = new Object[1];
+    private static final Object[] ASYNC_ARGS = new Object[2];
+    private static final Object[] TAGGED_ASYNC_ARGS = { TRACE_TAG_APP, null, null };
+
+    static boolean sEnabled;
+
+    private PagerTrace() {}
+
+    /**
+     * Turn tracing on or off. Must be called from the UI thread, and is
+     * ignored on platforms which cannot trace.
+     */
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled && BEGIN_SECTION != null;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Begin the section of a {@code PagerMetricsListener} event.
+     */
+    static void beginSection(int event) {
+        beginSection(SECTION_NAMES[event]);
+    }
+
+    static void beginSection(String name) {
+        SECTION_ARGS[0] = name;
+        invoke(BEGIN_SECTION, SECTION_ARGS);
+    }
+
+    /**
+     * Begin the section of a {@code PagerMetricsListener} event concerning
+     * the page at {@code position}.
+     */
+    static void beginSection(int event, int position) {
+        beginSection(SECTION_NAMES[event] + ' ' + position);
+    }
+
+    static void endSection() {
+        invoke(END_SECTION, NO_ARGS);
+    }
+
+    /**
+     * Move the asynchronous sections of {@code pager} along with its scroll
+     * state.
+     */
+    static void scrollStateChanged(Object pager, int oldState, int newState) {
+        if (BEGIN_ASYNC_SECTION == null) {
+            return;
+        }
+        // A pager scrolls once at a time, so it can stand for the scroll.
+        final int cookie = System.identityHashCode(pager);
+        if (oldState == ViewPager.SCROLL_STATE_IDLE) {
+            invoke(BEGIN_ASYNC_SECTION, async(SCROLL, cookie));
+        } else {
+            invoke(END_ASYNC_SECTION, async(stateName(oldState), cookie));
+        }
+        if (newState == ViewPager.SCROLL_STATE_IDLE) {
+            invoke(END_ASYNC_SECTION, async(SCROLL, cookie));
+        } else {
+            invoke(BEGIN_ASYNC_SECTION, async(stateName(newState), cookie));
+        }
+    }
+
+    private static String stateName(int state) {
+        return state == ViewPager.SCROLL_STATE_DRAGGING ? DRAGGING : SETTLING;
+    }
+
+    private static Object[] async(String name, int cookie) {
+        final Object[] args = ASYNC_TAGGED ? TAGGED_ASYNC_ARGS : ASYNC_ARGS;
+        final int offset = args.length - 2;
+        args[offset] = name;
+        args[offset + 1] = cookie;
+        return args;
+    }
+
+    private static void invoke(Method method, Object[] args) {
+        try {
+            method.invoke(null, args);
+        } catch (Exception e) {
+            Log.w(TAG, "Unable to trace.", e);
+            sEnabled = false;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+/**
+ * Shrinks and releases what a {@link DirectionalViewPager} keeps around when
+ * its {@link MemoryTrimmer} is told memory is low.
+ */
+final class PagerTrimHost implements MemoryTrimmer.Host {
+    private final DirectionalViewPager mPager;
+
+    PagerTrimHost(DirectionalViewPager pager) {
+        mPager = pager;
+    }
+
+    @Override
+    public void setWindowLimits(int before, int after) {
+        mPager.mWindow.setLimits(before, after);
+        mPager.populate();
+    }
+
+    @Override
+    public void releaseRetainedPages() {
+        mPager.mWarmPages.clear();
+        if (mPager.mRecycledPagePool != null && !mPager.mRecycledPagePoolShared) {
+            // Pagers sharing the pool may not be under pressure.
+            mPager.mRecycledPagePool.clear();
+        }
+        mPager.mPrefetcher.cancelAll();
+    }
+
+    @Override
+    public boolean isIdle() {
+        return mPager.mScrollState == DirectionalViewPager.SCROLL_STATE_IDLE;
+    }
+}
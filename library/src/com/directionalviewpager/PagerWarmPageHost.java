@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import android.view.View;
+
+/**
+ * Hands the pages evicted from the warm tier of a {@link DirectionalViewPager}
+ * on to its {@link RecycledPagePool}.
+ */
+final class PagerWarmPageHost implements WarmPageCache.Host {
+    private final DirectionalViewPager mPager;
+
+    PagerWarmPageHost(DirectionalViewPager pager) {
+        mPager = pager;
+    }
+
+    @Override
+    public void onEvictPage(View page, int viewType) {
+        mPager.removeWarmPage(page);
+        mPager.getRecycledPagePool().putRecycledPage(viewType, page);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+/**
+ * Creates and destroys the pages of a {@link DirectionalViewPager} as its
+ * {@link PageWindow} slides, and answers for its adapter.
+ */
+final class PagerWindowHost implements PageWindow.Host {
+    private final DirectionalViewPager mPager;
+
+    PagerWindowHost(DirectionalViewPager pager) {
+        mPager = pager;
+    }
+
+    @Override
+    public void onCreateItem(ItemInfo ii) {
+        mPager.addNewItem(ii);
+    }
+
+    @Override
+    public void onDestroyItem(ItemInfo ii) {
+        mPager.destroyItem(ii);
+    }
+
+    @Override
+    public int getItemPosition(Object object) {
+        return mPager.getAdapter().getItemPosition(object);
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return mPager.getAdapter() instanceof StableIdAdapter;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return ((StableIdAdapter) mPager.getAdapter()).getItemId(position);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import android.view.View;
+
+/**
+ * Implemented by a {@link android.support.v4.view.PagerAdapter} which can
+ * create its pages in two phases, so that pages entering while the user
+ * drags or the pager settles do not take frames from the animation.
+ *
+ * <p>While a {@link DirectionalViewPager} scrolls, and for the pages around
+ * another page it starts to settle on, new pages are created through
+ * {@link #instantiatePlaceholder(View, int)} instead of
+ * {@link android.support.v4.view.PagerAdapter#instantiateItem(View, int)}.
+ * Once it is idle again, and the UI thread has no other work, each
+ * placeholder still retained is completed through
+ * {@link #bindPlaceholder(View, int, Object)}, the current page first.
+ * Placeholders which leave the window before that are destroyed through
+ * {@link android.support.v4.view.PagerAdapter#destroyItem(View, int, Object)}.</p>
+ */
+public interface PlaceholderAdapter {
+    /**
+     * Create a cheap stand-in for a page, with the same contract as
+     * {@link android.support.v4.view.PagerAdapter#instantiateItem(View, int)}.
+     *
+     * @param container The containing View in which the page will be shown.
+     * @param position The page position to be instantiated.
+     * @return An Object representing the page, which must stay the same
+     *         once the page is bound.
+     */
+    Object instantiatePlaceholder(View container, int position);
+
+    /**
+     * Fill in the full content of a page created by
+     * {@link #instantiatePlaceholder(View, int)}.
+     *
+     * @param container The containing View in which the page is shown.
+     * @param position The page position.
+     * @param object The Object returned for the placeholder.
+     */
+    void bindPlaceholder(View container, int position, Object object);
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+
+/**
+ * Waits for the UI thread to run out of work before the placeholder pages of
+ * a {@link PlaceholderAdapter} are bound, so that binding never competes
+ * with the frames of a scroll.
+ */
+final class PlaceholderBinder implements MessageQueue.IdleHandler {
+    interface Host {
+        /** Returns whether the pager is at rest. */
+        boolean isIdle();
+
+        /** Bind every retained placeholder page. */
+        void bindPlaceholders();
+    }
+
+    private final Host mHost;
+    private final ItemInfoBuffer mItems;
+    private boolean mScheduled;
+
+    PlaceholderBinder(Host host, ItemInfoBuffer items) {
+        mHost = host;
+        mItems = items;
+    }
+
+    /**
+     * Bind the retained placeholders the next time the UI thread is idle,
+     * if there are any.
+     */
+    void schedule() {
+        if (mScheduled) {
+            return;
+        }
+        for (int i = 0; i < mItems.size(); i++) {
+            if (mItems.get(i).placeholder) {
+                mScheduled = true;
+                Looper.myQueue().addIdleHandler(this);
+                return;
+            }
+        }
+    }
+
+    void cancel() {
+        if (mScheduled) {
+            Looper.myQueue().removeIdleHandler(this);
+            mScheduled = false;
+        }
+    }
+
+    @Override
+    public boolean queueIdle() {
+        mScheduled = false;
+        // A scroll which started since is left alone; its end schedules again.
+        if (mHost.isIdle()) {
+            mHost.bindPlaceholders();
+        }
+        return false;
+    }
+}
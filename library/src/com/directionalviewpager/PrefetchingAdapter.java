@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+/**
+ * Implemented by a {@link android.support.v4.view.PagerAdapter} which can
+ * load the data for a page on a background thread before the page is
+ * instantiated by a {@link DirectionalViewPager}.
+ *
+ * @see DirectionalViewPager#setPrefetchDistance(int)
+ */
+public interface PrefetchingAdapter {
+    /**
+     * Load the data for a page. This is called on a background thread and
+     * the thread is interrupted if the page moves out of range before the
+     * load completes.
+     *
+     * @param position Position of the page.
+     * @return Data which will be passed to {@link #onItemPrefetched(int, Object)}.
+     * @throws Exception If the data cannot be loaded. The page will then be
+     *                   instantiated as if it had not been prefetched.
+     */
+    Object prefetchItem(int position) throws Exception;
+
+    /**
+     * Called on the UI thread immediately before
+     * {@link android.support.v4.view.PagerAdapter#instantiateItem(android.view.View, int)}
+     * for a page whose data has finished loading.
+     *
+     * @param position Position of the page.
+     * @param data Value returned from {@link #prefetchItem(int)}.
+     */
+    void onItemPrefetched(int position, Object data);
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import java.util.ArrayList;
+import android.util.SparseArray;
+import android.view.View;
+
+/**
+ * Pool of page views which have left the window of a
+ * {@link DirectionalViewPager} and can be handed back to a
+ * {@link RecyclingPagerAdapter} for rebinding.
+ *
+ * <p>A single pool may be shared between several pagers, for example a
+ * vertical pager whose pages each contain a horizontal pager, as long as all
+ * of their adapters agree on the meaning of each view type. Pools are not
+ * thread-safe and must only be used from the UI thread.</p>
+ */
+public class RecycledPagePool {
+    private static final int DEFAULT_MAX_RECYCLED_PAGES = 3;
+
+    private static class ScrapHeap {
+        final ArrayList<View> pages = new ArrayList<View>();
+        int max = DEFAULT_MAX_RECYCLED_PAGES;
+    }
+
+    private final SparseArray<ScrapHeap> mScrap = new SparseArray<ScrapHeap>();
+
+    /**
+     * Set the maximum number of detached pages of a view type which will be
+     * retained for reuse. Pages beyond this limit are dropped.
+     *
+     * @param viewType View type as returned by {@link RecyclingPagerAdapter#getItemViewType(int)}.
+     * @param max Maximum number of pages to retain. The default is 3.
+     */
+    public void setMaxRecycledPages(int viewType, int max) {
+        if (max < 0) {
+            throw new IllegalArgumentException("Maximum recycled pages must not be negative.");
+        }
+        final ScrapHeap heap = getScrapHeap(viewType);
+        heap.max = max;
+        final ArrayList<View> pages = heap.pages;
+        while (pages.size() > max) {
+            pages.remove(pages.size() - 1);
+        }
+    }
+
+    /**
+     * Returns the number of pages of a view type currently held by the pool.
+     */
+    public int getRecycledPageCount(int viewType) {
+        final ScrapHeap heap = mScrap.get(viewType);
+        return heap != null ? heap.pages.size() : 0;
+    }
+
+    /**
+     * Take a page of the given view type out of the pool.
+     *
+     * @return A detached page, or {@code null} if none is available.
+     */
+    public View getRecycledPage(int viewType) {
+        final ScrapHeap heap = mScrap.get(viewType);
+        if (heap == null || heap.pages.isEmpty()) {
+            return null;
+        }
+        final ArrayList<View> pages = heap.pages;
+        return pages.remove(pages.size() - 1);
+    }
+
+    /**
+     * Offer a page which has been removed from its parent to the pool.
+     *
+     * @return {@code true} if the page was retained, {@code false} if the
+     *         pool for its view type is already full.
+     */
+    public boolean putRecycledPage(int viewType, View page) {
+        final ScrapHeap heap = getScrapHeap(viewType);
+        if (heap.pages.size() >= heap.max) {
+            return false;
+        }
+        heap.pages.add(page);
+        return true;
+    }
+
+    /**
+     * Drop every page held by the pool.
+     */
+    public void clear() {
+        for (int i = 0; i < mScrap.size(); i++) {
+            mScrap.valueAt(i).pages.clear();
+        }
+    }
+
+    private ScrapHeap getScrapHeap(int viewType) {
+        ScrapHeap heap = mScrap.get(viewType);
+        if (heap == null) {
+            heap = new ScrapHeap();
+            mScrap.put(viewType, heap);
+        }
+        return heap;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import android.os.Parcelable;
+import android.support.v4.view.PagerAdapter;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * {@link PagerAdapter} whose pages are plain views that can be reused once
+ * they leave the window of retained pages, much like the views of a
+ * {@link android.widget.ListView}.
+ *
+ * <p>When bound to a {@link DirectionalViewPager}, pages removed from the
+ * window are placed in the pager's {@link RecycledPagePool} and passed back
+ * to {@link #getView(int, View, ViewGroup)} as the {@code convertView} of a
+ * page of the same view type. Other pagers simply create a new view for
+ * every page.</p>
+ */
+public abstract class RecyclingPagerAdapter extends PagerAdapter {
+    /**
+     * Get a view that displays the page at the specified position.
+     *
+     * @param position Position of the page.
+     * @param convertView A previously used page of the same view type which
+     *                    should be rebound if possible, or {@code null}.
+     * @param container The pager which will display the page.
+     * @return The page view. It must not have a parent.
+     */
+    public abstract View getView(int position, View convertView, ViewGroup container);
+
+    /**
+     * Get the type of view that will be created by {@link #getView} for the
+     * specified position. Only pages of the same type are recycled into one
+     * another.
+     *
+     * @return An integer representing the type of view. The default
+     *         implementation returns 0 for every page.
+     */
+    public int getItemViewType(int position) {
+        return 0;
+    }
+
+    @Override
+    public void startUpdate(View container) {
+    }
+
+    @Override
+    public Object instantiateItem(View container, int position) {
+        final ViewGroup pager = (ViewGroup) container;
+        final View page = getView(position, null, pager);
+        pager.addView(page);
+        return page;
+    }
+
+    @Override
+    public void destroyItem(View container, int position, Object object) {
+        ((ViewGroup) container).removeView((View) object);
+    }
+
+    @Override
+    public void finishUpdate(View container) {
+    }
+
+    @Override
+    public boolean isViewFromObject(View view, Object object) {
+        return view == object;
+    }
+
+    @Override
+    public Parcelable saveState() {
+        return null;
+    }
+
+    @Override
+    public void restoreState(Parcelable state, ClassLoader loader) {
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.UUID;
+import android.content.Context;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.util.Log;
+
+/**
+ * Moves adapter state which is too large for a saved instance state out to a
+ * file in the cache directory. Only a key naming the file goes into the
+ * parcel. Files are written and read on the calling thread, which is the UI
+ * thread for saved instance state.
+ */
+final class SavedStateSpill {
+    private static final String TAG = "DirectionalViewPager";
+    private static final String DIRECTORY = "directionalviewpager-state";
+
+    /** Spilled state this old was never restored and is deleted. */
+    private static final long MAX_AGE_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private SavedStateSpill() {
+    }
+
+    /**
+     * Write {@code state} to a file if its parcelled size exceeds
+     * {@code maxBytes}.
+     *
+     * @return Key of the file, or {@code null} if the state fits or could not
+     *         be written, in which case it must be kept in the parcel.
+     */
+    static String spill(Context context, Parcelable state, int maxBytes) {
+        if (state == null) {
+            return null;
+        }
+        final byte[] data;
+        final Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeParcelable(state, 0);
+            if (parcel.dataSize() <= maxBytes) {
+                return null;
+            }
+            data = parcel.marshall();
+        } catch (RuntimeException e) {
+            // State holding binders or file descriptors cannot be marshalled.
+            Log.w(TAG, "Could not spill adapter state.", e);
+            return null;
+        } finally {
+            parcel.recycle();
+        }
+
+        final File directory = new File(context.getCacheDir(), DIRECTORY);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.w(TAG, "Could not create " + directory);
+            return null;
+        }
+        deleteStale(directory);
+
+        final String key = UUID.randomUUID().toString();
+        final File file = new File(directory, key);
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(file);
+            out.write(data);
+            return key;
+        } catch (IOException e) {
+            Log.w(TAG, "Could not spill adapter state.", e);
+            file.delete();
+            return null;
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    /**
+     * Read back and delete state written by {@link #spill}.
+     *
+     * @param state State kept in the parcel, returned if there is no key.
+     * @return The state, or {@code null} if it is missing or unreadable.
+     */
+    static Parcelable load(Context context, Parcelable state, String key, ClassLoader loader) {
+        if (key == null) {
+            return state;
+        }
+        try {
+            // Keys come from a parcel; only accept what spill() creates.
+            UUID.fromString(key);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Invalid adapter state key " + key);
+            return null;
+        }
+
+        final File file = new File(new File(context.getCacheDir(), DIRECTORY), key);
+        final byte[] data;
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            data = new byte[(int) file.length()];
+            new DataInputStream(in).readFully(data);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not load adapter state.", e);
+            return null;
+        } finally {
+            closeQuietly(in);
+            file.delete();
+        }
+
+        final Parcel parcel = Parcel.obtain();
+        try {
+            parcel.unmarshall(data, 0, data.length);
+            parcel.setDataPosition(0);
+            return parcel.readParcelable(loader);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /**
+     * Delete state written by {@link #spill} which will never be loaded.
+     */
+    static void delete(Context context, String key) {
+        if (key != null) {
+            new File(new File(context.getCacheDir(), DIRECTORY), key).delete();
+        }
+    }
+
+    private static void deleteStale(File directory) {
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        final long oldest = System.currentTimeMillis() - MAX_AGE_MILLIS;
+        for (File file : files) {
+            if (file.lastModified() < oldest) {
+                file.delete();
+            }
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import android.view.View;
+import android.view.animation.AnimationUtils;
+
+/**
+ * Runs the settle animation of a pager from frame callbacks, which are
+ * aligned to the display's vsync where the platform supports it. Each frame
+ * asks the {@link PagerPhysics} for the position at the current animation
+ * time, so the animation runs at the same speed at any refresh rate.
+ */
+final class SettleAnimator implements Runnable {
+    interface Host {
+        /**
+         * Move the pages to the position of the current frame.
+         *
+         * @return Whether the pages moved.
+         */
+        boolean onSettleFrame(int position);
+
+        /** Called once the animation has run to its end. */
+        void finishSettle();
+    }
+
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    private final View mView;
+    private final Host mHost;
+    private PagerPhysics mPhysics = new FixedDurationPhysics();
+    private PagerMetricsListener mMetricsListener;
+    private long mFrameIntervalNanos;
+    private long mLastFrameNanos;
+    private boolean mRunning;
+    private boolean mScheduled;
+
+    SettleAnimator(View view, Host host) {
+        mView = view;
+        mHost = host;
+    }
+
+    void setMetricsListener(PagerMetricsListener listener) {
+        mMetricsListener = listener;
+    }
+
+    PagerPhysics getPhysics() {
+        return mPhysics;
+    }
+
+    void setPhysics(PagerPhysics physics) {
+        mPhysics = physics;
+    }
+
+    boolean isRunning() {
+        return mRunning;
+    }
+
+    /**
+     * Start animating from {@code from} to {@code to}, with the first step on
+     * the next frame.
+     *
+     * @param velocity Velocity to start with, in pixels per second.
+     * @param frameIntervalMillis Time between two frames of the display.
+     */
+    void start(int from, int to, float velocity, float frameIntervalMillis) {
+        mPhysics.start(from, to, velocity, AnimationUtils.currentAnimationTimeMillis());
+        mFrameIntervalNanos = (long) (frameIntervalMillis * NANOS_PER_MILLI);
+        mLastFrameNanos = 0;
+        mRunning = true;
+        schedule();
+    }
+
+    void cancel() {
+        mRunning = false;
+        if (mScheduled) {
+            mView.removeCallbacks(this);
+            mScheduled = false;
+        }
+    }
+
+    /**
+     * Stop the animation and return the position it was going to.
+     */
+    int finish() {
+        cancel();
+        mPhysics.finish();
+        return mPhysics.getPosition();
+    }
+
+    private void schedule() {
+        if (mScheduled) {
+            return;
+        }
+        mScheduled = true;
+        if (!PagerCompat.postOnAnimation(mView, this)) {
+            // Without frame callbacks, wait about one refresh.
+            mView.postDelayed(this, Math.max(1, mFrameIntervalNanos / NANOS_PER_MILLI));
+        }
+    }
+
+    @Override
+    public void run() {
+        mScheduled = false;
+        if (!mRunning) {
+            return;
+        }
+        final PagerMetricsListener metrics = mMetricsListener;
+        final long now = System.nanoTime();
+        if (metrics != null && mLastFrameNanos != 0) {
+            // Callbacks jitter a little; only a gap of one and a half frames
+            // or more means a frame was missed.
+            final long late = now - mLastFrameNanos - mFrameIntervalNanos;
+            if (late > mFrameIntervalNanos / 2) {
+                metrics.onPagerEvent(PagerMetricsListener.EVENT_SETTLE_FRAME_DROPPED, late);
+            }
+        }
+        mLastFrameNanos = now;
+
+        if (!mPhysics.update(AnimationUtils.currentAnimationTimeMillis())) {
+            mRunning = false;
+            mHost.finishSettle();
+            return;
+        }
+        final boolean moved = mHost.onSettleFrame(mPhysics.getPosition());
+        if (metrics != null && !moved) {
+            metrics.onPagerEvent(PagerMetricsListener.EVENT_SETTLE_FRAME_DUPLICATED, System.nanoTime() - now);
+        }
+        schedule();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+/**
+ * {@link PagerPhysics} which pulls the pages to their end with a damped
+ * spring, carrying on the velocity of a fling. Damping ratios below 1 let the
+ * pages overshoot and bounce back.
+ */
+public class SpringPhysics extends PagerPhysics {
+    public static final float DEFAULT_STIFFNESS = 1500;
+    public static final float DEFAULT_DAMPING_RATIO = 1;
+
+    /** Distance from the end, in pixels, within which the pages may rest. */
+    private static final float REST_DISTANCE = 0.5f;
+    /** Velocity, in pixels per second, below which the pages may rest. */
+    private static final float REST_VELOCITY = 30;
+
+    private final float mNaturalFrequency;
+    private final float mDampingRatio;
+
+    /** Displacement from the end when the animation started. */
+    private float mDisplacement;
+    private float mVelocity;
+
+    public SpringPhysics() {
+        this(DEFAULT_STIFFNESS, DEFAULT_DAMPING_RATIO);
+    }
+
+    /**
+     * @param stiffness Stiffness of the spring, for a unit mass.
+     * @param dampingRatio 1 for a critically damped spring, less to bounce.
+     */
+    public SpringPhysics(float stiffness, float dampingRatio) {
+        if (!(stiffness > 0)) {
+            throw new IllegalArgumentException("Stiffness must be positive.");
+        }
+        if (!(dampingRatio > 0)) {
+            throw new IllegalArgumentException("Damping ratio must be positive.");
+        }
+        mNaturalFrequency = (float) Math.sqrt(stiffness);
+        mDampingRatio = dampingRatio;
+    }
+
+    @Override
+    protected void onStart(int distance, float velocity) {
+        mDisplacement = -distance;
+        mVelocity = velocity;
+    }
+
+    @Override
+    protected float getOffset(long elapsedMillis) {
+        return displacement(elapsedMillis / 1000.0) - mDisplacement;
+    }
+
+    @Override
+    protected boolean isAtRest(long elapsedMillis) {
+        final double t = elapsedMillis / 1000.0;
+        final double x = displacement(t);
+        // Velocity from the displacement a millisecond later.
+        final double v = (displacement(t + 0.001) - x) * 1000;
+        return Math.abs(x) < REST_DISTANCE && Math.abs(v) < REST_VELOCITY;
+    }
+
+    /**
+     * Returns the displacement from the end after {@code t} seconds.
+     */
+    private float displacement(double t) {
+        final double w = mNaturalFrequency;
+        final double zeta = mDampingRatio;
+        final double x0 = mDisplacement;
+        final double v0 = mVelocity;
+        if (zeta < 1) {
+            final double wd = w * Math.sqrt(1 - zeta * zeta);
+            return (float) (Math.exp(-zeta * w * t)
+                    * (x0 * Math.cos(wd * t) + (v0 + zeta * w * x0) / wd * Math.sin(wd * t)));
+        } else if (zeta == 1) {
+            return (float) (Math.exp(-w * t) * (x0 + (v0 + w * x0) * t));
+        } else {
+            final double root = w * Math.sqrt(zeta * zeta - 1);
+            final double r1 = -zeta * w + root;
+            final double r2 = -zeta * w - root;
+            final double c2 = (v0 - r1 * x0) / (r2 - r1);
+            final double c1 = x0 - c2;
+            return (float) (c1 * Math.exp(r1 * t) + c2 * Math.exp(r2 * t));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+/**
+ * Implemented by a {@link android.support.v4.view.PagerAdapter} whose items
+ * keep an identifier as they move between positions.
+ *
+ * <p>When the data set of such an adapter changes, a
+ * {@link DirectionalViewPager} finds each retained page by its ID near its old
+ * position. Pages whose ID is still present are kept and moved instead of
+ * being destroyed and rebuilt. Pages which moved further than a few positions
+ * are located through
+ * {@link android.support.v4.view.PagerAdapter#getItemPosition(Object)}, so
+ * an adapter whose items can move further must implement it. If that returns
+ * {@code POSITION_UNCHANGED}, the page is taken to be gone.</p>
+ */
+public interface StableIdAdapter {
+    /**
+     * Returns the stable ID of the item at a position.
+     */
+    long getItemId(int position);
+}
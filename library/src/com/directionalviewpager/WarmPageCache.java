@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import android.view.View;
+
+/**
+ * Pages which just left the window of a {@link DirectionalViewPager}, kept
+ * bound but detached from the view hierarchy so that they cost no measure,
+ * layout or draw. Coming back to one of them only reattaches it.
+ *
+ * <p>Pages are kept in least recently used order, limited by their count and
+ * by an estimate of the memory they hold. The cache is small, so entries are
+ * kept in parallel arrays and searched linearly.</p>
+ */
+final class WarmPageCache {
+    interface Host {
+        /** Called for a page dropped from the cache, still detached. */
+        void onEvictPage(View page, int viewType);
+    }
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final Host mHost;
+    private int mMaxPages;
+    private long mMaxBytes;
+
+    // Ordered from least to most recently used.
+    private View[] mPages = new View[INITIAL_CAPACITY];
+    private int[] mPositions = new int[INITIAL_CAPACITY];
+    private int[] mViewTypes = new int[INITIAL_CAPACITY];
+    private long[] mBytes = new long[INITIAL_CAPACITY];
+    private int mSize;
+    private long mTotalBytes;
+
+    WarmPageCache(Host host, int maxPages, long maxBytes) {
+        mHost = host;
+        mMaxPages = maxPages;
+        mMaxBytes = maxBytes;
+    }
+
+    int getMaxPages() {
+        return mMaxPages;
+    }
+
+    long getMaxBytes() {
+        return mMaxBytes;
+    }
+
+    void setLimits(int maxPages, long maxBytes) {
+        mMaxPages = maxPages;
+        mMaxBytes = maxBytes;
+        trim();
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    long getTotalBytes() {
+        return mTotalBytes;
+    }
+
+    /**
+     * Keep a detached page. Pages which do not fit on their own are evicted
+     * right away.
+     */
+    void put(int position, int viewType, View page) {
+        // Estimate the memory held by a page from the size of a bitmap of it.
+        final long bytes = 4L * page.getWidth() * page.getHeight();
+        if (mSize == mPages.length) {
+            grow();
+        }
+        mPages[mSize] = page;
+        mPositions[mSize] = position;
+        mViewTypes[mSize] = viewType;
+        mBytes[mSize] = bytes;
+        mSize++;
+        mTotalBytes += bytes;
+        trim();
+    }
+
+    /**
+     * Returns the page kept for a position if it has the given view type,
+     * removing it from the cache, or {@code null}.
+     */
+    View take(int position, int viewType) {
+        for (int i = mSize - 1; i >= 0; i--) {
+            if (mPositions[i] == position) {
+                if (mViewTypes[i] != viewType) {
+                    return null;
+                }
+                final View page = mPages[i];
+                remove(i);
+                return page;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Move the pages kept for positions at or after {@code start} along by
+     * {@code count} inserted positions.
+     */
+    void itemRangeInserted(int start, int count) {
+        for (int i = 0; i < mSize; i++) {
+            if (mPositions[i] >= start) {
+                mPositions[i] += count;
+            }
+        }
+    }
+
+    /**
+     * Evict the pages kept for {@code count} removed positions from
+     * {@code start} and move the pages after them back.
+     */
+    void itemRangeRemoved(int start, int count) {
+        evictRange(start, count);
+        final int end = start + count;
+        for (int i = 0; i < mSize; i++) {
+            if (mPositions[i] >= end) {
+                mPositions[i] -= count;
+            }
+        }
+    }
+
+    /**
+     * Move the pages kept for a block of {@code count} positions which moved
+     * from {@code from} to {@code to}, and those it moved past.
+     */
+    void itemRangeMoved(int from, int to, int count) {
+        for (int i = 0; i < mSize; i++) {
+            mPositions[i] = PageWindow.movedPosition(mPositions[i], from, to, count);
+        }
+    }
+
+    /**
+     * Evict the pages kept for {@code count} positions from {@code start}
+     * whose content changed.
+     */
+    void itemRangeChanged(int start, int count) {
+        evictRange(start, count);
+    }
+
+    /**
+     * Evict every page.
+     */
+    void clear() {
+        while (mSize > 0) {
+            evictOldest();
+        }
+    }
+
+    private void trim() {
+        while (mSize > 0 && (mSize > mMaxPages || mTotalBytes > mMaxBytes)) {
+            evictOldest();
+        }
+    }
+
+    private void evictRange(int start, int count) {
+        final int end = start + count;
+        for (int i = mSize - 1; i >= 0; i--) {
+            if (mPositions[i] >= start && mPositions[i] < end) {
+                final View page = mPages[i];
+                final int viewType = mViewTypes[i];
+                remove(i);
+                mHost.onEvictPage(page, viewType);
+            }
+        }
+    }
+
+    private void evictOldest() {
+        final View page = mPages[0];
+        final int viewType = mViewTypes[0];
+        remove(0);
+        mHost.onEvictPage(page, viewType);
+    }
+
+    private void remove(int index) {
+        mTotalBytes -= mBytes[index];
+        final int moved = mSize - index - 1;
+        System.arraycopy(mPages, index + 1, mPages, index, moved);
+        System.arraycopy(mPositions, index + 1, mPositions, index, moved);
+        System.arraycopy(mViewTypes, index + 1, mViewTypes, index, moved);
+        System.arraycopy(mBytes, index + 1, mBytes, index, moved);
+        mSize--;
+        mPages[mSize] = null;
+    }
+
+    private void grow() {
+        final int capacity = mPages.length * 2;
+        final View[] pages = new View[capacity];
+        final int[] positions = new int[capacity];
+        final int[] viewTypes = new int[capacity];
+        final long[] bytes = new long[capacity];
+        System.arraycopy(mPages, 0, pages, 0, mSize);
+        System.arraycopy(mPositions, 0, positions, 0, mSize);
+        System.arraycopy(mViewTypes, 0, viewTypes, 0, mSize);
+        System.arraycopy(mBytes, 0, bytes, 0, mSize);
+        mPages = pages;
+        mPositions = positions;
+        mViewTypes = viewTypes;
+        mBytes = bytes;
+    }
+}
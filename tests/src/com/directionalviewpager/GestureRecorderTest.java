@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import android.view.MotionEvent;
+
+/**
+ * Records a gesture, plays it back into a pager which records it again and
+ * checks that nothing was lost on the way: the second recording has to match
+ * the first byte for byte, which covers every time, pointer ID and position.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class GestureRecorderTest {
+    private static final int POINTER_1_DOWN =
+            MotionEvent.ACTION_POINTER_DOWN | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT);
+    private static final int POINTER_0_UP =
+            MotionEvent.ACTION_POINTER_UP | (0 << MotionEvent.ACTION_POINTER_INDEX_SHIFT);
+
+    @Test
+    public void replayRecordsTheSameGesture() throws IOException {
+        final GestureRecorder recorder = new GestureRecorder();
+        final MotionEvent[] gesture = {
+            event(1000, MotionEvent.ACTION_DOWN, new int[] { 0 }, 400, 300),
+            batchedMove(1016, 380, 300, 1024, 361, 301),
+            batchedMove(1033, 340, 302, 1049, 317, 304),
+            // A second finger comes down, the first lifts and the second
+            // carries on alone as pointer 1.
+            event(1057, POINTER_1_DOWN, new int[] { 0, 1 }, 310, 305, 120, 500),
+            event(1073, MotionEvent.ACTION_MOVE, new int[] { 0, 1 }, 290, 306, 101, 498),
+            event(1090, POINTER_0_UP, new int[] { 0, 1 }, 288, 306, 95, 497),
+            event(1106, MotionEvent.ACTION_MOVE, new int[] { 1 }, 70, 495),
+            event(1600, MotionEvent.ACTION_UP, new int[] { 1 }, 64, 495),
+        };
+        for (MotionEvent ev : gesture) {
+            recorder.record(ev);
+            ev.recycle();
+        }
+        final byte[] recording = write(recorder);
+
+        final GestureReplayer replayer = GestureReplayer.read(new ByteArrayInputStream(recording));
+        assertEquals(gesture.length, replayer.getEventCount());
+
+        final DirectionalViewPager pager = new DirectionalViewPager(RuntimeEnvironment.application);
+        final GestureRecorder replayed = new GestureRecorder();
+        pager.setGestureRecorder(replayed);
+        final GestureReplayer.Report report = replayer.replay(pager);
+
+        assertEquals(gesture.length, report.getEventCount());
+        assertEquals(0, report.getSkippedEventCount());
+        assertEquals(gesture.length, replayed.getEventCount());
+        assertArrayEquals(recording, write(replayed));
+    }
+
+    @Test(expected = IOException.class)
+    public void readRejectsOtherData() throws IOException {
+        GestureReplayer.read(new ByteArrayInputStream(new byte[] { 'P', 'K', 3, 4, 0, 0, 0, 0 }));
+    }
+
+    private static byte[] write(GestureRecorder recorder) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recorder.writeTo(out);
+        assertEquals(recorder.getByteCount(), out.size());
+        return out.toByteArray();
+    }
+
+    /** A move of pointer 0 with one older sample batched into it. */
+    private static MotionEvent batchedMove(long historicalTime, float historicalX, float historicalY,
+            long time, float x, float y) {
+        final MotionEvent ev = MotionEvent.obtain(1000, historicalTime, MotionEvent.ACTION_MOVE,
+                historicalX, historicalY, 0);
+        ev.addBatch(time, x, y, 1, 1, 0);
+        return ev;
+    }
+
+    /** An event with the given pointers, followed by their x and y positions. */
+    private static MotionEvent event(long time, int action, int[] ids, float... positions) {
+        final MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            coords[i] = new MotionEvent.PointerCoords();
+            coords[i].x = positions[i * 2];
+            coords[i].y = positions[i * 2 + 1];
+            coords[i].pressure = 1;
+        }
+        return MotionEvent.obtain(1000, time, action, ids.length, ids, coords, 0, 1, 1, 0, 0, 0, 0);
+    }
+}
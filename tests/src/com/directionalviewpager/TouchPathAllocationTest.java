@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2011 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.directionalviewpager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowSystemClock;
+import android.app.Activity;
+import android.content.Context;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Fails when a drag and the settle after it allocate once warmed up. A
+ * gesture is replayed through the parts the pager's
+ * {@code onInterceptTouchEvent()}, {@code onTouchEvent()} and
+ * {@code computeScroll()} hand their work to: the {@link DragTracker} follows
+ * the events, the {@link SettleAnimator} steps frame by frame and every
+ * step goes through the {@link PageScrollDispatcher} to a listener and a
+ * {@link PageTransformer} of the pager's pages.
+ *
+ * <p>The pager's own touch methods are not called: Robolectric's stand-ins
+ * for {@code VelocityTracker} and {@code scrollTo()} allocate on every call,
+ * where the framework does not.</p>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class TouchPathAllocationTest {
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+    private static final int TOUCH_SLOP = 16;
+    private static final int MOVES = 20;
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int ITERATIONS = 50;
+    /** Compilation can allocate on the thread now and then, so the best round counts. */
+    private static final int ROUNDS = 5;
+
+    /** Runs the settle animator's frame callbacks when told to. */
+    static final class FrameView extends View {
+        Runnable mFrame;
+
+        FrameView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void postOnAnimation(Runnable action) {
+            mFrame = action;
+        }
+
+        @Override
+        public boolean removeCallbacks(Runnable action) {
+            if (mFrame == action) {
+                mFrame = null;
+            }
+            return true;
+        }
+
+        boolean runFrame() {
+            final Runnable frame = mFrame;
+            if (frame == null) {
+                return false;
+            }
+            mFrame = null;
+            ShadowSystemClock.sleep(16);
+            frame.run();
+            return true;
+        }
+    }
+
+    private com.sun.management.ThreadMXBean mThreads;
+    private final long mThreadId = Thread.currentThread().getId();
+
+    private DirectionalViewPager mPager;
+    private final DragTracker mDragTracker = new DragTracker();
+    private final PageScrollDispatcher mDispatcher = new PageScrollDispatcher();
+    private FrameView mFrames;
+    private SettleAnimator mSettleAnimator;
+    private MotionEvent[] mForward;
+    private MotionEvent[] mBack;
+    private int mScroll;
+    private int mFrameCount;
+
+    @Before
+    public void setUp() {
+        final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported());
+        mThreads = (com.sun.management.ThreadMXBean) threads;
+
+        final Activity context = Robolectric.setupActivity(Activity.class);
+        mPager = new DirectionalViewPager(context);
+        mPager.setOffscreenPageLimit(2);
+        mPager.setAdapter(new RecyclingPagerAdapter() {
+            @Override
+            public int getCount() {
+                return 100;
+            }
+
+            @Override
+            public View getView(int position, View convertView, ViewGroup container) {
+                return convertView != null ? convertView : new View(context);
+            }
+        });
+        context.setContentView(mPager);
+        mPager.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mPager.layout(0, 0, WIDTH, HEIGHT);
+
+        mDispatcher.addListener(new OnPageScrollListener() {
+            @Override
+            public void onPageScrolled(int position, int offsetPixels, int pageSize) {
+            }
+
+            @Override
+            public void onPageSelected(int position) {
+            }
+
+            @Override
+            public void onPageScrollStateChanged(int state) {
+            }
+        });
+        mDispatcher.setPageTransformer(new PageTransformer() {
+            @Override
+            public void transformPage(View page, float position, int orientation) {
+            }
+        });
+
+        mDragTracker.setTouchSlop(TOUCH_SLOP);
+        mFrames = new FrameView(context);
+        mSettleAnimator = new SettleAnimator(mFrames, new SettleAnimator.Host() {
+            @Override
+            public boolean onSettleFrame(int position) {
+                mFrameCount++;
+                scrollTo(position);
+                return true;
+            }
+
+            @Override
+            public void finishSettle() {
+                mDispatcher.dispatchPendingScroll(mPager, 0, mScroll, WIDTH);
+            }
+        });
+        mSettleAnimator.setMetricsListener(new PagerMetrics());
+
+        mForward = gesture(400, 100);
+        mBack = gesture(100, 400);
+    }
+
+    @Test
+    public void dragAndSettleDoNotAllocate() {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            replay();
+        }
+        assertEquals("Every replay settles back where it started.", 0, mScroll);
+        assertTrue("Settles step frame by frame.", mFrameCount > 2 * WARMUP_ITERATIONS);
+        assertTrue("Pages are transformed.", mPager.getChildCount() > 1);
+
+        final long overhead = measure(false);
+        final long bytes = measure(true) - overhead;
+        assertEquals("Bytes allocated by " + ITERATIONS + " drags and settles.", 0, bytes);
+    }
+
+    /**
+     * Returns the fewest bytes allocated by {@link #ITERATIONS} replays, or
+     * by as many empty loops, in any round.
+     */
+    private long measure(boolean replay) {
+        long bytes = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            final long start = mThreads.getThreadAllocatedBytes(mThreadId);
+            for (int i = 0; i < ITERATIONS; i++) {
+                if (replay) {
+                    replay();
+                }
+            }
+            bytes = Math.min(bytes, mThreads.getThreadAllocatedBytes(mThreadId) - start);
+        }
+        return bytes;
+    }
+
+    /** Drag a page ahead and let it settle, then drag it back. */
+    private void replay() {
+        replay(mForward, WIDTH);
+        replay(mBack, 0);
+    }
+
+    /**
+     * Hand the events to the drag tracker as the pager does, then settle on
+     * {@code target} one frame at a time.
+     */
+    private void replay(MotionEvent[] gesture, int target) {
+        boolean dragging = false;
+        for (MotionEvent ev : gesture) {
+            switch (ev.getAction()) {
+                case MotionEvent.ACTION_DOWN:
+                    mDragTracker.down(ev.getX(), ev.getY());
+                    break;
+                case MotionEvent.ACTION_MOVE:
+                    int firstSample = 0;
+                    if (!dragging && mDragTracker.checkSlop(ev, 0, true) == DragTracker.SLOP_DRAG) {
+                        dragging = true;
+                        mDragTracker.startDrag(mScroll);
+                        firstSample = mDragTracker.getSlopSample();
+                    }
+                    if (dragging) {
+                        scrollTo(mDragTracker.drag(ev, 0, firstSample, mScroll, 0, 2 * WIDTH, 0));
+                    }
+                    break;
+                case MotionEvent.ACTION_UP:
+                    mSettleAnimator.start(mScroll, target, 0, 16);
+                    break;
+            }
+        }
+        while (mFrames.runFrame()) {
+            // Step frame by frame to the end.
+        }
+    }
+
+    /** Move the pages and report it, as a touch event or frame does. */
+    private void scrollTo(int scroll) {
+        mScroll = scroll;
+        mDispatcher.onScrollChanged();
+        mDispatcher.dispatchPendingScroll(mPager, 0, mScroll, WIDTH);
+    }
+
+    /** A horizontal drag with an older sample batched into every move. */
+    private static MotionEvent[] gesture(float fromX, float toX) {
+        final MotionEvent[] events = new MotionEvent[MOVES + 2];
+        final float y = HEIGHT / 2;
+        events[0] = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, fromX, y, 0);
+        for (int i = 1; i <= MOVES; i++) {
+            final float x = fromX + (toX - fromX) * i / MOVES;
+            final float step = (toX - fromX) / MOVES / 2;
+            events[i] = MotionEvent.obtain(0, i * 16 - 8, MotionEvent.ACTION_MOVE, x - step, y, 0);
+            events[i].addBatch(i * 16, x, y, 1, 1, 0);
+        }
+        events[MOVES + 1] = MotionEvent.obtain(0, MOVES * 16 + 16, MotionEvent.ACTION_UP, toX, y, 0);
+        return events;
+    }
+}